@@ -0,0 +1,251 @@
+package codes.carl.gallery;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.PreloadWindow;
+
+/**
+ * Preloads the pictures ahead of the gallery grid as it scrolls, looking further ahead the faster
+ *  it scrolls.
+ *
+ * Replaces Glide's RecyclerViewPreloader, which always looks the same number of pictures ahead
+ *  and never stops a preload once it has started.
+ *
+ * @see PreloadWindow
+ */
+class AdaptivePreloader extends RecyclerView.OnScrollListener {
+
+    /**
+     * Constant TAG string for logs.
+     */
+    private static final String TAG = "Preloader";
+
+    /**
+     * The fewest rows preloaded ahead of the screen.
+     */
+    private static final int MIN_ROWS = 2;
+
+    /**
+     * The most rows preloaded ahead of the screen.
+     */
+    private static final int MAX_ROWS = 10;
+
+    /**
+     * How far ahead to preload, in seconds of scrolling at the current speed.
+     */
+    private static final float LEAD_SECONDS = 1f;
+
+    /**
+     * The most preloads running at once, the same as the requests the shared network dispatcher
+     *  runs at once to Lorem Picsum.
+     */
+    private static final int MAX_IN_FLIGHT = 8;
+
+    /**
+     * Starts and cancels the preloads.
+     */
+    private final RequestManager requestManager;
+
+    /**
+     * The adapter holding the pictures and building their requests.
+     */
+    private final GalleryAdapter adapter;
+
+    /**
+     * Gets the size of the gallery cells to preload the pictures at.
+     */
+    private final ViewPreloadSizeProvider<Picture> sizeProvider;
+
+    /**
+     * Works out which positions to preload.
+     */
+    private final PreloadWindow window = new PreloadWindow(MIN_ROWS, MAX_ROWS, LEAD_SECONDS, MAX_IN_FLIGHT);
+
+    /**
+     * The running preloads, by position.
+     */
+    private final Map<Integer, Target<Object>> targets = new HashMap<>();
+
+    /**
+     * Constructs an adaptive preloader, which forgets its preloads whenever the pictures in the
+     *  adapter move.
+     *
+     * @param requestManager Starts and cancels the preloads.
+     * @param adapter        The adapter holding the pictures and building their requests.
+     * @param sizeProvider   Gets the size of the gallery cells to preload the pictures at.
+     */
+    AdaptivePreloader(RequestManager requestManager, GalleryAdapter adapter, ViewPreloadSizeProvider<Picture> sizeProvider) {
+        this.requestManager = requestManager;
+        this.adapter = adapter;
+        this.sizeProvider = sizeProvider;
+
+        // The preloads are tracked by position, which means a different picture once the
+        // pictures are re-sorted, but a page appended at the end leaves them where they are
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                cancelAll();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                if (window.isMovedByInsert(positionStart)) {
+                    cancelAll();
+                }
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                cancelAll();
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                cancelAll();
+            }
+        });
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        GridLayoutManager layoutManager = (GridLayoutManager) recyclerView.getLayoutManager();
+        View firstChild = recyclerView.getChildAt(0);
+
+        if (layoutManager == null || firstChild == null || firstChild.getHeight() == 0) {
+            return;
+        }
+
+        window.onScrolled((float) dy / firstChild.getHeight(), SystemClock.uptimeMillis());
+
+        PreloadWindow.Plan plan = window.plan(layoutManager.findFirstVisibleItemPosition(),
+                layoutManager.findLastVisibleItemPosition(), layoutManager.getSpanCount(), adapter.getItemCount());
+
+        for (int position : plan.getCancel()) {
+            Target<Object> target = targets.remove(position);
+
+            if (target != null) {
+                requestManager.clear(target);
+                adapter.getPreloadStats().recordWasted();
+            }
+        }
+
+        for (int position : plan.getStart()) {
+            preload(position);
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            window.onScrollStopped();
+            Log.d(TAG, adapter.getPreloadStats() + ", " + window.getInFlightCount() + " preloads running");
+        }
+    }
+
+    /**
+     * Starts preloading the picture at a position at the size of the gallery cells.
+     *
+     * @param position The position of the picture
+     */
+    @SuppressWarnings("unchecked")
+    private void preload(int position) {
+        List<Picture> pictures = adapter.getPictures();
+        Picture picture = position < pictures.size() ? pictures.get(position) : null;
+        int[] size = picture == null ? null : sizeProvider.getPreloadSize(picture, position, 0);
+
+        // Nothing can be preloaded until a cell has been laid out to measure
+        if (size == null) {
+            window.onCancelled(position);
+            return;
+        }
+
+        RequestBuilder<Object> request = (RequestBuilder<Object>) adapter.getPreloadRequestBuilder(picture);
+        PreloadListener listener = new PreloadListener(position);
+        Target<Object> target = request.addListener(listener).preload(size[0], size[1]);
+
+        // A picture already in memory finishes before preload returns
+        if (!listener.finished) {
+            targets.put(position, target);
+        }
+    }
+
+    /**
+     * Stops every running preload and forgets the finished ones.
+     */
+    private void cancelAll() {
+        for (Target<Object> target : targets.values()) {
+            requestManager.clear(target);
+            adapter.getPreloadStats().recordWasted();
+        }
+
+        targets.clear();
+        window.reset();
+    }
+
+    /**
+     * Stops counting a preload as running once it loads or fails.
+     */
+    private class PreloadListener implements RequestListener<Object> {
+
+        /**
+         * The position being preloaded.
+         */
+        private final int position;
+
+        /**
+         * Whether the preload loaded or failed.
+         */
+        boolean finished = false;
+
+        /**
+         * Constructs a preload listener.
+         *
+         * @param position The position being preloaded.
+         */
+        PreloadListener(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Object> target, boolean isFirstResource) {
+            finish();
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Object resource, Object model, Target<Object> target, DataSource dataSource, boolean isFirstResource) {
+            finish();
+            return false;
+        }
+
+        /**
+         * Records that the preload is no longer running. Cancelled preloads never get here, as
+         *  Glide doesn't call the listeners of a cleared request.
+         */
+        private void finish() {
+            finished = true;
+            window.onFinished(position);
+            targets.remove(position);
+        }
+    }
+}
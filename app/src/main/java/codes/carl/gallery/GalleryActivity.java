@@ -22,24 +22,35 @@ import android.view.View;
 import android.widget.FrameLayout;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.MemoryCategory;
 import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.github.ybq.android.spinkit.SpinKitView;
 
 import org.parceler.Parcels;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureCache;
+import codes.carl.gallery.model.PictureStore;
 import codes.carl.gallery.model.views.GalleryViewModel;
 import codes.carl.gallery.network.Client;
-import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.network.PageLoader;
+import codes.carl.gallery.utils.sort.SortPipeline;
+import codes.carl.gallery.utils.sort.SortType;
+import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.observers.DisposableObserver;
 import io.reactivex.schedulers.Schedulers;
 import retrofit2.Response;
 
 import static codes.carl.gallery.utils.sort.SortType.ALPHA;
+import static codes.carl.gallery.utils.sort.SortType.LOCALE_ALPHA;
+import static codes.carl.gallery.utils.sort.SortType.NORMAL;
 import static codes.carl.gallery.utils.sort.SortType.SIZE;
 
 /**
@@ -93,12 +104,23 @@ public class GalleryActivity extends AppCompatActivity {
      */
     private WebInfoModal webInfoModal;
 
+    /**
+     * The page of pictures currently being downloaded.
+     */
+    private Disposable pageDownload;
+
+    /**
+     * Stores the first page of pictures between launches.
+     */
+    private PictureCache pictureCache;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
         viewModel = new ViewModelProvider(this).get(GalleryViewModel.class);
+        pictureCache = new PictureCache(new File(getCacheDir(), "pictures.bin"), Client.getInstance().getAuthorDictionary());
 
         gallery = findViewById(R.id.galleryView);
 
@@ -121,14 +143,27 @@ public class GalleryActivity extends AppCompatActivity {
         int orientation = getResources().getConfiguration().orientation;
         int columns = orientation == Configuration.ORIENTATION_LANDSCAPE ? 3 : 2;
 
-        gallery.setLayoutManager(new GridLayoutManager(this, columns));
+        GridLayoutManager layoutManager = new GridLayoutManager(this, columns);
+        gallery.setLayoutManager(layoutManager);
+
+        // Download the next page of pictures before the user reaches the end of the gallery. The
+        // grid also reports a scroll of 0 when a layout changes the visible pictures, so a page
+        // too short to fill the screen still leads on to the next one
+        gallery.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy >= 0) {
+                    loadNextPageIfNeeded();
+                }
+            }
+        });
 
         // Trigger load images if there is no image data
-        if (viewModel.getPictures().isEmpty()) {
+        if (viewModel.getServerPictures().isEmpty()) {
             loadingProgress.setVisibility(View.VISIBLE);
-            loadImages();
+            loadCachedImages();
         } else {
-            setupGallery(viewModel.getPictures());
+            showGallery();
         }
 
         // Reveal the info modal if it was previously open before config change
@@ -138,6 +173,31 @@ public class GalleryActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+
+        // Any memory pressure that shrank the image caches is checked again while the gallery is shown
+        Glide.get(this).setMemoryCategory(MemoryCategory.NORMAL);
+    }
+
+    /**
+     * Keeps the image caches smaller while the system is running low on memory. Glide trims its
+     *  caches for each level by itself, the lower memory category stops them filling straight
+     *  back up.
+     *
+     * @param level How short the system is on memory
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        // Hiding the UI isn't memory pressure, it only means the app went to the background
+        if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN) {
+            Glide.get(this).setMemoryCategory(MemoryCategory.LOW);
+        }
+    }
+
     @Override
     protected void onDestroy() {
         // Clean up after RxAndroid
@@ -168,17 +228,17 @@ public class GalleryActivity extends AppCompatActivity {
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
         switch (item.getItemId()) {
+            case R.id.normalSort:
+                sortGallery(NORMAL);
+                return true;
             case R.id.authorSort:
-                if (adapter != null) {
-                    viewModel.setSortType(ALPHA);
-                    adapter.alphaSort();
-                }
+                sortGallery(ALPHA);
+                return true;
+            case R.id.localeAuthorSort:
+                sortGallery(LOCALE_ALPHA);
                 return true;
             case R.id.imageSizeSort:
-                if (adapter != null) {
-                    viewModel.setSortType(SIZE);
-                    adapter.sizeSort();
-                }
+                sortGallery(SIZE);
                 return true;
             default:
                 return super.onOptionsItemSelected(item);
@@ -205,84 +265,243 @@ public class GalleryActivity extends AppCompatActivity {
     }
 
     /**
-     * Downloads image details from Lorem Picsum
+     * Displays the pictures cached by a previous launch straight away, then checks with Lorem
+     *  Picsum whether they are still current. Downloads the first page as usual when nothing is
+     *  cached.
+     */
+    private void loadCachedImages() {
+        viewModel.setRefreshing(true);
+
+        viewModel.getRxDisposables().add(Single.fromCallable(pictureCache::load)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(snapshot -> {
+                    if (snapshot.isEmpty()) {
+                        loadImages();
+                        return;
+                    }
+
+                    loadingProgress.setVisibility(View.GONE);
+                    setupGallery(snapshot.getPictures());
+
+                    downloadPage(viewModel.getPageLoader().revalidateFirstPage(snapshot.getEtag(),
+                            snapshot.getLastModified(), snapshot.getPictures().size()), true);
+                }, e -> {
+                    // The cache is only a head start, so anything wrong with it falls back to
+                    // downloading the pictures
+                    Log.w(TAG, "Unable to load cached pictures: " + e.getMessage());
+                    loadImages();
+                }));
+    }
+
+    /**
+     * Downloads the first page of image details from Lorem Picsum, replacing the gallery contents.
      */
     private void loadImages() {
         viewModel.setRefreshing(true);
 
-        viewModel.getRxDisposables().add(Client.getInstance().getPicsumAPI().getImageList()
+        // Stop downloading pages for the previous list
+        if (pageDownload != null) {
+            pageDownload.dispose();
+        }
+
+        downloadPage(viewModel.getPageLoader().loadFirstPage(), true);
+    }
+
+    /**
+     * Downloads the next page of image details from Lorem Picsum and adds it to the gallery, if
+     *  the last picture shown is near the end of the gallery and no page is downloading.
+     */
+    private void loadNextPageIfNeeded() {
+        GridLayoutManager layoutManager = (GridLayoutManager) gallery.getLayoutManager();
+        PageLoader pageLoader = viewModel.getPageLoader();
+
+        // Nothing is known about the screen until the first page is shown, and nothing is
+        // subscribed to while a page is downloading or after the last page
+        if (layoutManager == null || layoutManager.getItemCount() == 0
+                || !pageLoader.shouldLoadNextPage(layoutManager.findLastVisibleItemPosition(), layoutManager.getItemCount())) {
+            return;
+        }
+
+        downloadPage(pageLoader.loadNextPage(), false);
+    }
+
+    /**
+     * Subscribes to a page download and loads the pictures into the gallery when it arrives.
+     *
+     * @param page      The page download
+     * @param firstPage Whether the page replaces the gallery contents or is added to them
+     */
+    private void downloadPage(Observable<Response<List<Picture>>> page, boolean firstPage) {
+        if (firstPage) {
+            page = page.doOnNext(this::cacheFirstPage);
+        }
+
+        pageDownload = page
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeWith(new DisposableObserver<Response<List<Picture>>>() {
 
+                    /**
+                     * Whether the download added pictures to the gallery.
+                     */
+                    private boolean added = false;
+
                     @Override
                     public void onNext(Response<List<Picture>> response) {
                         if (response.code() == 200) {
-                            if (response.body() != null && !response.body().isEmpty()) {
-                                setupGallery(response.body());
-                            } else {
+                            List<Picture> pictures = response.body();
+
+                            if (pictures != null && !pictures.isEmpty()) {
+                                added = true;
+
+                                if (firstPage) {
+                                    setupGallery(pictures);
+                                } else {
+                                    appendToGallery(pictures);
+                                }
+                            } else if (firstPage) {
                                 showEmptyMessage();
                             }
+                        } else if (response.code() == PageLoader.NOT_MODIFIED) {
+                            // The cached pictures being displayed are still current
+                            Log.d(TAG, "Cached pictures are up to date");
                         } else {
                             Log.e(TAG, "Response code: " + response.code());
-                            showDownloadError("Unable to download images from server - Code " + response.code());
+
+                            if (firstPage) {
+                                showDownloadError("Unable to download images from server - Code " + response.code());
+                            }
                         }
                     }
 
                     @Override
                     public void onError(Throwable e) {
                         Log.e(TAG, "Network Error: " + e.getMessage());
-                        showDownloadError(e.getMessage());
+
+                        // A failed page further down is retried the next time the user scrolls
+                        if (firstPage) {
+                            showDownloadError(e.getMessage());
+                        }
+
                         hideProgress();
+                        viewModel.getRxDisposables().delete(this);
                     }
 
                     @Override
                     public void onComplete() {
                         hideProgress();
+                        viewModel.getRxDisposables().delete(this);
+
+                        // Added pictures ask for the next page once they are laid out, but cached
+                        // pictures that are still current don't change the layout
+                        if (!added) {
+                            loadNextPageIfNeeded();
+                        }
                     }
-                }));
+                });
+
+        viewModel.getRxDisposables().add(pageDownload);
+    }
+
+    /**
+     * Stores a downloaded first page so it can be displayed straight away on the next launch.
+     * This performs disk IO and runs on the download thread.
+     *
+     * @param response The server response for the first page
+     */
+    private void cacheFirstPage(Response<List<Picture>> response) {
+        if (response.code() != 200 || response.body() == null || response.body().isEmpty()) {
+            return;
+        }
+
+        try {
+            pictureCache.save(response.body(),
+                    response.headers().get("ETag"),
+                    response.headers().get("Last-Modified"));
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to cache pictures: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a newly downloaded page of pictures to the pictures already in the gallery.
+     *
+     * @param page The pictures to add to the gallery
+     */
+    private void appendToGallery(List<Picture> page) {
+        // The pictures already shown are copied column by column, without building them
+        setupGallery(new PictureStore.Builder(viewModel.getServerPictures().size() + page.size())
+                .addAll(viewModel.getServerPictures())
+                .addAll(page)
+                .build());
     }
 
     /**
      * Loads downloaded image data into the gallery adapter.
      *
-     * @param newPictures The pictures to load into the adapter
+     * @param newPictures The pictures to load into the adapter, in server order
      */
     private void setupGallery(List<Picture> newPictures) {
+        viewModel.setPictures(newPictures);
+        showGallery();
+    }
 
-        // Pre-sort new image results based on the current sort option
-        switch (viewModel.getSortType()) {
-            case ALPHA:
-                newPictures = SortUtils.alphaSort(newPictures);
-                break;
-            case SIZE:
-                SortUtils.sizeSort(newPictures);
-                break;
-            default:
-                break;
-        }
+    /**
+     * Displays the gallery pictures sorted by the current sort option, setting up the adapter
+     *  the first time.
+     */
+    private void showGallery() {
 
         // Only setup adapter and view logic if necessary
         if (adapter == null) {
-            adapter = new GalleryAdapter(this, viewModel, sizeProvider);
+            adapter = new GalleryAdapter(this, sizeProvider);
             gallery.setAdapter(adapter);
 
-            RecyclerViewPreloader<Picture> preloader = new RecyclerViewPreloader<>(
-                    Glide.with(this), adapter, sizeProvider, 10);
-
-            gallery.addOnScrollListener(preloader);
+            // Looks further ahead the faster the gallery scrolls
+            gallery.addOnScrollListener(new AdaptivePreloader(Glide.with(this), adapter, sizeProvider));
 
             // Add observer for the full-screen image viewer
             viewModel.getRxDisposables().add(adapter.clickedPictureEvent().observeOn(AndroidSchedulers.mainThread()).subscribe(this::viewFullScreenImage));
 
             // Add observer for the info viewer
             viewModel.getRxDisposables().add(adapter.clickedInfoEvent().observeOn(AndroidSchedulers.mainThread()).subscribe(this::viewWebModal));
+
+            // Add observer for the pictures sorted off the main thread
+            viewModel.getRxDisposables().add(viewModel.getSortPipeline().results().observeOn(AndroidSchedulers.mainThread()).subscribe(this::showSortedPictures));
         }
 
-        // Only update the list if the downloaded image data changed
-        if (!adapter.getPictures().equals(newPictures)) {
-            viewModel.setPictures(newPictures);
-            adapter.notifyDataSetChanged();
+        viewModel.requestSort();
+    }
+
+    /**
+     * Displays pictures sorted by the sort pipeline, unless the gallery or the sort option
+     *  changed while they were being sorted.
+     *
+     * @param result The sorted pictures
+     */
+    private void showSortedPictures(SortPipeline.Result result) {
+        if (result.getSortIndex() != viewModel.getSortIndex() || result.getSortType() != viewModel.getSortType()) {
+            return;
+        }
+
+        if (!result.isCached()) {
+            Log.d(TAG, "Sorted " + result.getPictures().size() + " pictures by " + result.getSortType() + " in " + result.getDurationMillis() + "ms");
+        }
+
+        // The adapter only updates the rows that changed compared to what is displayed
+        adapter.submitPictures(result.getPictures());
+    }
+
+    /**
+     * Sorts the gallery by a sort option.
+     *
+     * @param sortType The sort option
+     */
+    private void sortGallery(SortType sortType) {
+        if (adapter != null) {
+            viewModel.setSortType(sortType);
+            viewModel.requestSort();
         }
     }
 
@@ -358,7 +577,7 @@ public class GalleryActivity extends AppCompatActivity {
                         If an error occurred but there are images downloaded to view, allow
                         the user to continue viewing downloaded images, otherwise quit.
                      */
-                    if (viewModel.getPictures().isEmpty()) {
+                    if (viewModel.getServerPictures().isEmpty()) {
                         finish();
                     }
                 });
@@ -11,34 +11,41 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.Request;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import static com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions.withCrossFade;
 
+import java.util.Collections;
 import java.util.List;
 
 import codes.carl.gallery.model.Picture;
-import codes.carl.gallery.model.views.GalleryViewModel;
 import codes.carl.gallery.utils.GlideApp;
 import codes.carl.gallery.utils.GlideRequest;
-import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.utils.GlideRequests;
+import codes.carl.gallery.utils.PictureDiff;
+import codes.carl.gallery.utils.PreloadStats;
+import codes.carl.gallery.utils.StableIds;
 import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 
 /**
  * Handles the display and replacement of picture views in the gallery view.
  */
-public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureViewHolder> implements
-        ListPreloader.PreloadModelProvider<Picture> {
-
-    /**
-     * ViewModel containing picture list data.
-     */
-    private GalleryViewModel viewModel;
+public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureViewHolder> {
 
     /**
      * Inflates the picture views into the adapter.
@@ -50,11 +57,21 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
      */
     private ViewPreloadSizeProvider<Picture> preloadSizeProvider;
 
+    /**
+     * Used by Glide to start and clear the requests of the picture image views.
+     */
+    private GlideRequests glideRequests;
+
     /**
      * Used by Glide to load images into the picture image view.
      */
     private GlideRequest<Drawable> glideRequest;
 
+    /**
+     * Counts how often a picture was already in memory when its cell was shown.
+     */
+    private PreloadStats preloadStats = new PreloadStats();
+
     /**
      * Emits the clicked picture to subscribers.
      */
@@ -65,61 +82,101 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
      */
     private PublishSubject<Picture> clickedInfo = PublishSubject.create();
 
+    /**
+     * The pictures displayed.
+     */
+    private List<Picture> pictures = Collections.emptyList();
+
+    /**
+     * Computes the changes between the displayed pictures and a new list on a background thread,
+     *  or null if no list is waiting to be displayed.
+     */
+    private Disposable pendingDiff;
+
+    /**
+     * The stable ids of the pictures displayed.
+     */
+    private StableIds stableIds = new StableIds();
+
     /**
      * Constructs a gallery adapter.
      *
      * @param context             Reference to the Activity context.
-     * @param viewModel           The ViewModel containing the list of pictures to add to the adapter.
      * @param preloadSizeProvider Used by the pre-loader to track the view size for preloading images.
      */
-    GalleryAdapter(Context context, GalleryViewModel viewModel, ViewPreloadSizeProvider<Picture> preloadSizeProvider) {
-        this.viewModel = viewModel;
+    GalleryAdapter(Context context, ViewPreloadSizeProvider<Picture> preloadSizeProvider) {
         this.preloadSizeProvider = preloadSizeProvider;
 
         layoutInflater = LayoutInflater.from(context);
 
-        glideRequest = GlideApp.with(context)
+        // Lets moved pictures keep their views and loaded images when the list is re-sorted
+        setHasStableIds(true);
+
+        glideRequests = GlideApp.with(context);
+
+        // Pictures on screen are loaded ahead of the preloads queued behind them
+        glideRequest = glideRequests
                 .asDrawable()
+                .priority(Priority.HIGH)
                 .fitCenter()
                 .centerCrop()
                 .placeholder(R.drawable.gallery_item_placeholder)
                 .error(android.R.drawable.stat_notify_error)
-                .thumbnail(0.5f)
-                .transition(withCrossFade());
-    }
-
-    /**
-     * Remove all images from the gallery grid.
-     */
-    public void clear() {
-        viewModel.getPictures().clear();
-        notifyDataSetChanged();
+                .transition(withCrossFade())
+                .listener(new RequestListener<Drawable>() {
+                    @Override
+                    public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
+                        preloadStats.recordBind(dataSource == DataSource.MEMORY_CACHE);
+                        return false;
+                    }
+                });
     }
 
     /**
-     * Adds the provided list of pictures to the current gallery.
+     * Displays a new list of pictures. Only the rows that were added, removed, moved or changed
+     *  compared to the displayed list are updated.
      *
-     * @param pictures A list of pictures to add to the gallery grid
+     * @param pictures The pictures to display, which must not change afterwards
      */
-    public void addAll(List<Picture> pictures) {
-        viewModel.getPictures().addAll(pictures);
-        notifyDataSetChanged();
-    }
+    void submitPictures(List<Picture> pictures) {
+        // Only the newest list is displayed
+        if (pendingDiff != null) {
+            pendingDiff.dispose();
+            pendingDiff = null;
+        }
 
-    /**
-     * Sorts the pictures in the gallery by the author's name.
-     */
-    public void alphaSort() {
-        viewModel.setPictures(SortUtils.alphaSort(viewModel.getPictures()));
-        notifyDataSetChanged();
-    }
+        List<Picture> oldPictures = this.pictures;
 
-    /**
-     * Sorts the pictures in the gallery by the image size.
-     */
-    void sizeSort() {
-        SortUtils.sizeSort(viewModel.getPictures());
-        notifyDataSetChanged();
+        if (oldPictures == pictures) {
+            return;
+        }
+
+        // There is nothing to compare when either list is empty
+        if (oldPictures.isEmpty() || pictures.isEmpty()) {
+            this.pictures = pictures;
+            stableIds = stableIds.update(pictures);
+            notifyItemRangeRemoved(0, oldPictures.size());
+            notifyItemRangeInserted(0, pictures.size());
+            return;
+        }
+
+        StableIds oldIds = stableIds;
+
+        pendingDiff = Single.fromCallable(() -> new PendingUpdate(
+                DiffUtil.calculateDiff(new PictureDiffCallback(oldPictures, pictures)), oldIds.update(pictures)))
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(update -> {
+                    pendingDiff = null;
+                    this.pictures = pictures;
+                    stableIds = update.stableIds;
+                    update.diff.dispatchUpdatesTo(this);
+                });
     }
 
     /**
@@ -128,7 +185,16 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
      * @return The pictures in the gallery
      */
     List<Picture> getPictures() {
-        return viewModel.getPictures();
+        return pictures;
+    }
+
+    /**
+     * Gets how often a picture was already in memory when its cell was shown.
+     *
+     * @return The preload hit counts
+     */
+    PreloadStats getPreloadStats() {
+        return preloadStats;
     }
 
     @NonNull
@@ -140,15 +206,26 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
 
     @Override
     public void onBindViewHolder(@NonNull PictureViewHolder holder, int position) {
-        Picture picture = viewModel.getPictures().get(position);
+        Picture picture = pictures.get(position);
 
         holder.picture = picture;
         holder.authorName.setText(picture.getAuthor());
-        holder.loadImage(picture.getDownload_url());
+        holder.loadImage(picture);
 
         preloadSizeProvider.setView(holder.galleryImage);
     }
 
+    /**
+     * Stops loading the picture of a cell that scrolled off screen, so it isn't downloaded or
+     *  decoded for nobody, and lets the bitmap go back to the pool.
+     *
+     * @param holder The cell being recycled
+     */
+    @Override
+    public void onViewRecycled(@NonNull PictureViewHolder holder) {
+        holder.clearImage();
+    }
+
     /**
      * Gets the overall picture count in the adapter.
      *
@@ -156,19 +233,18 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
      */
     @Override
     public int getItemCount() {
-        return viewModel.getPictures().size();
+        return pictures.size();
     }
 
     /**
-     * Gets a picture to pre-load ahead in the gallery view.
+     * Gets a stable id for the picture at a position so its view can follow it when it moves.
      *
-     * @param position The position of a picture in the list to pre-load.
-     * @return A list containing an image to pre-load.
+     * @param position The position of the picture
+     * @return The stable id of the picture
      */
-    @NonNull
     @Override
-    public List<Picture> getPreloadItems(int position) {
-        return viewModel.getPictures().subList(position, position + 1);
+    public long getItemId(int position) {
+        return stableIds.get(position);
     }
 
     /**
@@ -177,10 +253,10 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
      * @param item The picture to pre-load.
      * @return A constructed request to call to pre-load the image.
      */
-    @Nullable
-    @Override
-    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Picture item) {
-        return glideRequest.clone().load(item.getDownload_url());
+    RequestBuilder<?> getPreloadRequestBuilder(@NonNull Picture item) {
+        // Loads the picture itself rather than a url, so it is sized to the preload target, and
+        // drops the listener so preloads aren't counted as shown
+        return glideRequest.clone().listener(null).priority(Priority.LOW).load(item);
     }
 
     /**
@@ -201,6 +277,81 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
         return clickedInfo;
     }
 
+    /**
+     * The changes and stable ids worked out in the background for a new list of pictures.
+     */
+    private static class PendingUpdate {
+
+        /**
+         * The rows that were added, removed, moved or changed.
+         */
+        final DiffUtil.DiffResult diff;
+
+        /**
+         * The stable ids of the new list.
+         */
+        final StableIds stableIds;
+
+        /**
+         * Constructs a pending update.
+         *
+         * @param diff      The rows that were added, removed, moved or changed.
+         * @param stableIds The stable ids of the new list.
+         */
+        PendingUpdate(DiffUtil.DiffResult diff, StableIds stableIds) {
+            this.diff = diff;
+            this.stableIds = stableIds;
+        }
+    }
+
+    /**
+     * Compares the pictures of two lists by position to find the rows that moved or changed,
+     *  reading their keys instead of building the pictures.
+     */
+    private static class PictureDiffCallback extends DiffUtil.Callback {
+
+        /**
+         * The pictures displayed.
+         */
+        private final List<Picture> oldPictures;
+
+        /**
+         * The pictures to display.
+         */
+        private final List<Picture> newPictures;
+
+        /**
+         * Constructs a picture diff callback.
+         *
+         * @param oldPictures The pictures displayed.
+         * @param newPictures The pictures to display.
+         */
+        PictureDiffCallback(List<Picture> oldPictures, List<Picture> newPictures) {
+            this.oldPictures = oldPictures;
+            this.newPictures = newPictures;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldPictures.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newPictures.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return PictureDiff.sameItem(oldPictures, oldItemPosition, newPictures, newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return PictureDiff.sameContents(oldPictures, oldItemPosition, newPictures, newItemPosition);
+        }
+    }
+
     /**
      * A ViewHolder representing an individual picture view in the gallery grid.
      */
@@ -226,6 +377,16 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
          */
         Picture picture;
 
+        /**
+         * The picture loading or loaded into the image view, or null if none is.
+         */
+        Picture imagePicture;
+
+        /**
+         * The target of the picture loading or loaded into the image view, or null if none is.
+         */
+        Target<Drawable> imageTarget;
+
         /**
          * Constructs the picture ViewHolder.
          *
@@ -247,12 +408,47 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PictureV
         }
 
         /**
-         * Loads an image into the picture ImageView provided an initial location URL.
+         * Loads a picture into the picture ImageView, downloaded at about the size of the view,
+         *  unless the same picture is already loading or loaded into it.
          *
-         * @param url The url of the image to load in the view.
+         * @param picture The picture to load in the view.
+         * @see codes.carl.gallery.utils.PictureUrlLoader
+         */
+        void loadImage(Picture picture) {
+            Request request = imageTarget == null ? null : imageTarget.getRequest();
+
+            // Binding the same picture again keeps the load that is running or finished
+            if (request != null && picture.sameIdentity(imagePicture)
+                    && (request.isRunning() || request.isComplete())) {
+                return;
+            }
+
+            // Glide clears the load of the previous picture for the new one
+            if (request != null && request.isRunning()) {
+                preloadStats.recordWasted();
+            }
+
+            imagePicture = picture;
+            imageTarget = glideRequest.load(picture).into(galleryImage);
+        }
+
+        /**
+         * Clears the picture ImageView, cancelling its load if it hasn't finished.
          */
-        void loadImage(String url) {
-            glideRequest.load(url).into(galleryImage);
+        void clearImage() {
+            if (imageTarget == null) {
+                return;
+            }
+
+            Request request = imageTarget.getRequest();
+
+            if (request != null && request.isRunning()) {
+                preloadStats.recordWasted();
+            }
+
+            glideRequests.clear(imageTarget);
+            imageTarget = null;
+            imagePicture = null;
         }
     }
 }
@@ -0,0 +1,21 @@
+package codes.carl.gallery;
+
+import android.app.Application;
+
+import java.io.File;
+
+import codes.carl.gallery.network.Client;
+
+/**
+ * Sets up the app wide state of the Gallery app before any screen is shown.
+ */
+public class GalleryApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // API responses are cached next to the pictures, where Android can clear them when it needs space
+        Client.configure(Client.Config.forBuildType(new File(getCacheDir(), "http")));
+    }
+}
@@ -7,6 +7,8 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.ImageView;
 
+import com.bumptech.glide.load.DecodeFormat;
+
 import org.parceler.Parcels;
 
 import codes.carl.gallery.model.Picture;
@@ -43,6 +45,7 @@ public class ImageActivity extends AppCompatActivity {
 
         GlideApp.with(this)
                 .load(viewModel.getPicture().getDownload_url())
+                .format(DecodeFormat.PREFER_ARGB_8888) // Full quality, unlike the grid thumbnails
                 .fitCenter()
                 .placeholder(R.drawable.gallery_item_placeholder)
                 .error(android.R.drawable.stat_notify_error)
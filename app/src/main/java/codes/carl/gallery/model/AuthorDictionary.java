@@ -0,0 +1,188 @@
+package codes.carl.gallery.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one copy of each author name, along with its alphabetical sort key.
+ *
+ * The same photographers appear on hundreds of pictures, but every picture parsed from JSON
+ *  comes with its own copy of the name. Names are swapped for the shared copy as they are parsed,
+ *  so the duplicates are dropped straight away, and the sort key of each name is only worked
+ *  out the first time the name is seen instead of on every sort.
+ *
+ * The app keeps one dictionary in its network client, which hands it to the parsers, the picture
+ *  cache and the sort index. A dictionary can be used from any number of threads at once. It
+ *  stops adding names once it holds its capacity, and names seen after that are handed back
+ *  unchanged.
+ */
+public class AuthorDictionary {
+
+    /**
+     * The number of names the app's dictionary holds. Lorem Picsum has far fewer authors, so
+     *  this only guards against an unexpected list growing it without bound.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The sort key for a picture without an author, or whose author has no letters a-z.
+     */
+    private static final byte[] EMPTY_KEY = new byte[0];
+
+    /**
+     * The most names this dictionary holds.
+     */
+    private final int capacity;
+
+    /**
+     * The stored names and their sort keys, by name.
+     */
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an empty author dictionary.
+     *
+     * @param capacity The most names to hold
+     */
+    public AuthorDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the shared copy of an author name, adding it if it is new.
+     *
+     * @param author The author name, may be null
+     * @return An equal string, the same one for every equal name while there is room
+     */
+    public String intern(String author) {
+        Entry entry = entry(author);
+        return entry == null ? author : entry.name;
+    }
+
+    /**
+     * Gets the alphabetical sort key of an author name, working it out only the first time the
+     *  name is seen.
+     *
+     * @param author The author name, may be null
+     * @return The lowercase English letters of the name, which must not be changed
+     * @see #key(String)
+     */
+    public byte[] sortKey(String author) {
+        if (author == null) {
+            return EMPTY_KEY;
+        }
+
+        Entry entry = entry(author);
+        return entry == null ? key(author) : entry.sortKey;
+    }
+
+    /**
+     * Reduces an author name to its English letters in lowercase, one byte per letter. Sorting
+     *  by these keys puts names in alphabetical order, ignoring case and anything but a-z.
+     *
+     * @param author The author name
+     * @return The letters of the name
+     */
+    public static byte[] key(String author) {
+        int letters = 0;
+
+        for (int i = 0; i < author.length(); i++) {
+            if (letter(author.charAt(i)) != 0) {
+                letters++;
+            }
+        }
+
+        if (letters == 0) {
+            return EMPTY_KEY;
+        }
+
+        byte[] key = new byte[letters];
+        int position = 0;
+
+        for (int i = 0; i < author.length(); i++) {
+            byte letter = letter(author.charAt(i));
+
+            if (letter != 0) {
+                key[position++] = letter;
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * Gets the lowercase English letter for a character.
+     *
+     * @param c The character
+     * @return The letter a-z, or 0 if the character is not an English letter
+     */
+    private static byte letter(char c) {
+        c = Character.toLowerCase(c);
+
+        return c >= 'a' && c <= 'z' ? (byte) c : 0;
+    }
+
+    /**
+     * Gets the number of names stored.
+     *
+     * @return The name count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the stored entry for an author name, adding it if there is room.
+     *
+     * @param author The author name
+     * @return The entry, or null if the name is null or the dictionary is full
+     */
+    private Entry entry(String author) {
+        if (author == null) {
+            return null;
+        }
+
+        Entry entry = entries.get(author);
+
+        if (entry == null) {
+            if (entries.size() >= capacity) {
+                return null;
+            }
+
+            // Another thread may add the same name first, in which case its entry wins
+            Entry created = new Entry(author);
+            entry = entries.putIfAbsent(author, created);
+
+            if (entry == null) {
+                entry = created;
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * A stored author name and its sort key.
+     */
+    private static class Entry {
+
+        /**
+         * The shared copy of the name.
+         */
+        final String name;
+
+        /**
+         * The alphabetical sort key of the name.
+         */
+        final byte[] sortKey;
+
+        /**
+         * Constructs an entry, working out the sort key.
+         *
+         * @param name The author name
+         */
+        Entry(String name) {
+            this.name = name;
+            this.sortKey = key(name);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package codes.carl.gallery.model;
 
 import org.parceler.Parcel;
 
-import java.math.BigInteger;
 import java.util.Objects;
 
 /**
@@ -11,6 +10,27 @@ import java.util.Objects;
 @Parcel
 public class Picture {
 
+    /**
+     * Marks the cached pixel area as not calculated yet.
+     */
+    private static final long AREA_UNKNOWN = -1;
+
+    /**
+     * Marks the cached fingerprint as not calculated yet. A fingerprint that works out to this
+     *  value is stored as 1 instead.
+     */
+    private static final long FINGERPRINT_UNKNOWN = 0;
+
+    /**
+     * The starting value of the 64 bit FNV-1a hash.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * The multiplier of the 64 bit FNV-1a hash.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     /**
      * The picture id.
      */
@@ -41,6 +61,18 @@ public class Picture {
      */
     String download_url;
 
+    /**
+     * The total pixel area, calculated on first use from the width and height.
+     * Left out of serialization since it is derived.
+     */
+    private transient volatile long area = AREA_UNKNOWN;
+
+    /**
+     * A hash of every field, calculated on first use or given by the store the picture came from.
+     * Left out of serialization since it is derived.
+     */
+    private transient volatile long fingerprint = FINGERPRINT_UNKNOWN;
+
     /**
      * Empty constructor for Gson
      */
@@ -67,6 +99,42 @@ public class Picture {
         this.height = height;
     }
 
+    /**
+     * Creates a picture with all of its details.
+     *
+     * @param id           The picture id
+     * @param author       The picture author
+     * @param width        The width of the picture in pixels
+     * @param height       The height of the picture in pixels
+     * @param url          The web page url with more information about the picture
+     * @param download_url The direct download url of the picture
+     */
+    public Picture(String id, String author, long width, long height, String url, String download_url) {
+        this.id = id;
+        this.author = author;
+        this.width = width;
+        this.height = height;
+        this.url = url;
+        this.download_url = download_url;
+    }
+
+    /**
+     * Creates a picture with all of its details and a fingerprint that was already calculated.
+     *
+     * @param id           The picture id
+     * @param author       The picture author
+     * @param width        The width of the picture in pixels
+     * @param height       The height of the picture in pixels
+     * @param url          The web page url with more information about the picture
+     * @param download_url The direct download url of the picture
+     * @param fingerprint  The fingerprint of the fields
+     * @see #fingerprint(String, String, long, long, String, String)
+     */
+    Picture(String id, String author, long width, long height, String url, String download_url, long fingerprint) {
+        this(id, author, width, height, url, download_url);
+        this.fingerprint = fingerprint;
+    }
+
     /**
      * Gets the picture id.
      *
@@ -127,19 +195,137 @@ public class Picture {
      * @return The area of the picture in pixels
      */
     public long totalPixelsSize() {
-        BigInteger area = BigInteger.valueOf(getHeight()).multiply(BigInteger.valueOf(getWidth()));
+        long area = this.area;
+
+        // The width and height never change once set, so the area only has to be calculated once
+        if (area == AREA_UNKNOWN) {
+            area = pixelArea(getWidth(), getHeight());
+            this.area = area;
+        }
+
+        return area;
+    }
+
+    /**
+     * Multiplies a width by a height without allocating. Areas too large for a long are
+     *  clamped to {@link Long#MAX_VALUE}, and negative areas are clamped to 0.
+     *
+     * @param width  The width in pixels
+     * @param height The height in pixels
+     * @return The clamped area in pixels
+     */
+    static long pixelArea(long width, long height) {
+        long area = width * height;
+        long absWidth = Math.abs(width);
+        long absHeight = Math.abs(height);
 
-        if (area.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
-            return Long.MAX_VALUE;
-        } else if (area.compareTo(BigInteger.ZERO) < 0) {
-            return 0;
+        // The product can only overflow if one of the values doesn't fit in 31 bits
+        if (((absWidth | absHeight) >>> 31) != 0) {
+            boolean overflow = (height != 0 && area / height != width)
+                    || (width == Long.MIN_VALUE && height == -1);
+
+            if (overflow) {
+                return (width < 0) == (height < 0) ? Long.MAX_VALUE : 0;
+            }
+        }
+
+        return area < 0 ? 0 : area;
+    }
+
+    /**
+     * Gets a 64 bit hash of every field of the picture. Pictures with different fingerprints are
+     *  never equal, and equal pictures always have the same fingerprint.
+     *
+     * @return The fingerprint, never 0
+     */
+    public long fingerprint() {
+        long fingerprint = this.fingerprint;
+
+        // Like the area, the fields never change once set, so this only has to be calculated once
+        if (fingerprint == FINGERPRINT_UNKNOWN) {
+            fingerprint = fingerprint(id, author, width, height, url, download_url);
+            this.fingerprint = fingerprint;
         }
 
-        return area.longValue();
+        return fingerprint;
+    }
+
+    /**
+     * Calculates the fingerprint of a picture from its fields, without allocating.
+     *
+     * @param id           The picture id
+     * @param author       The picture author
+     * @param width        The width of the picture in pixels
+     * @param height       The height of the picture in pixels
+     * @param url          The web page url
+     * @param download_url The direct download url
+     * @return The 64 bit FNV-1a hash of the fields, never 0
+     */
+    static long fingerprint(String id, String author, long width, long height, String url, String download_url) {
+        long hash = FNV_OFFSET_BASIS;
+
+        hash = mix(hash, id);
+        hash = mix(hash, author);
+        hash = mix(hash, width);
+        hash = mix(hash, height);
+        hash = mix(hash, url);
+        hash = mix(hash, download_url);
+
+        return hash == FINGERPRINT_UNKNOWN ? 1 : hash;
     }
 
     /**
-     * Determines the equivalence of two different Picture objects.
+     * Mixes a string into a hash. The length goes in first so neighbouring strings can't run
+     *  together, and null mixes in differently from every string.
+     *
+     * @param hash The hash so far
+     * @param text The string, may be null
+     * @return The new hash
+     */
+    private static long mix(long hash, String text) {
+        if (text == null) {
+            return mix(hash, -1L);
+        }
+
+        hash = mix(hash, (long) text.length());
+
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Mixes a number into a hash, one byte at a time.
+     *
+     * @param hash  The hash so far
+     * @param value The number
+     * @return The new hash
+     */
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Check if two pictures are the same Lorem Picsum picture, whose details may have changed.
+     *  Pictures are identified by id, and a picture without an id is only the same as itself.
+     *
+     * @param other The picture to compare this picture to
+     * @return Whether the pictures have the same id
+     */
+    public boolean sameIdentity(Picture other) {
+        return this == other || (other != null && id != null && id.equals(other.id));
+    }
+
+    /**
+     * Determines the equivalence of two different Picture objects. Pictures with different
+     *  fingerprints are told apart without looking at their fields.
      *
      * @param o An object to compare this picture to
      * @return whether the picture is equal to the provided object
@@ -149,7 +335,10 @@ public class Picture {
         if (this == o) return true;
         if (!(o instanceof Picture)) return false;
         Picture picture = (Picture) o;
-        return width == picture.width &&
+
+        // The fields are still compared when the fingerprints match, in case two pictures collide
+        return fingerprint() == picture.fingerprint() &&
+                width == picture.width &&
                 height == picture.height &&
                 Objects.equals(id, picture.id) &&
                 Objects.equals(author, picture.author) &&
@@ -158,12 +347,13 @@ public class Picture {
     }
 
     /**
-     * Provides a hash code for the Picture.
+     * Provides a hash code for the Picture, folded from its fingerprint.
      *
      * @return A hash code for the picture
      */
     @Override
     public int hashCode() {
-        return Objects.hash(id, author, width, height, url, download_url);
+        long fingerprint = fingerprint();
+        return (int) (fingerprint ^ (fingerprint >>> 32));
     }
 }
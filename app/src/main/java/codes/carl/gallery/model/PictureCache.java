@@ -0,0 +1,241 @@
+package codes.carl.gallery.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores the first page of the picture list in a compact binary file, so the gallery can be
+ *  displayed on a cold start without waiting for the network.
+ *
+ * The HTTP validators (ETag and Last-Modified) of the cached page are stored alongside it so
+ *  the page can be revalidated with a conditional request.
+ */
+public class PictureCache {
+
+    /**
+     * Marks the start of a cache file.
+     */
+    private static final int MAGIC = 0x50435348;
+
+    /**
+     * The version of the cache file format. Files with another version are ignored.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The cache file.
+     */
+    private final File file;
+
+    /**
+     * Holds the shared copy of each author name read.
+     */
+    private final AuthorDictionary authors;
+
+    /**
+     * A set of pictures read from the cache along with their HTTP validators.
+     */
+    public static class Snapshot {
+
+        /**
+         * A snapshot of an empty cache.
+         */
+        static final Snapshot EMPTY = new Snapshot(Collections.<Picture>emptyList(), null, null);
+
+        /**
+         * The cached pictures, in the order they were downloaded.
+         */
+        private final List<Picture> pictures;
+
+        /**
+         * The ETag header of the response the pictures came from.
+         */
+        private final String etag;
+
+        /**
+         * The Last-Modified header of the response the pictures came from.
+         */
+        private final String lastModified;
+
+        /**
+         * Constructs a cache snapshot.
+         *
+         * @param pictures     The cached pictures
+         * @param etag         The ETag header of the response the pictures came from
+         * @param lastModified The Last-Modified header of the response the pictures came from
+         */
+        Snapshot(List<Picture> pictures, String etag, String lastModified) {
+            this.pictures = pictures;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Gets the cached pictures.
+         *
+         * @return The cached pictures, empty if nothing was cached
+         */
+        public List<Picture> getPictures() {
+            return pictures;
+        }
+
+        /**
+         * Gets the ETag header of the response the pictures came from.
+         *
+         * @return The ETag, or null if the server did not send one
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Gets the Last-Modified header of the response the pictures came from.
+         *
+         * @return The last modified date, or null if the server did not send one
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Check if there are no cached pictures.
+         *
+         * @return Whether the snapshot is empty
+         */
+        public boolean isEmpty() {
+            return pictures.isEmpty();
+        }
+    }
+
+    /**
+     * Constructs a picture cache.
+     *
+     * @param file    The file the pictures are stored in
+     * @param authors Holds the shared copy of each author name read
+     */
+    public PictureCache(File file, AuthorDictionary authors) {
+        this.file = file;
+        this.authors = authors;
+    }
+
+    /**
+     * Reads the cached pictures. This performs disk IO and should not run on the main thread.
+     *
+     * @return The cached pictures, or an empty snapshot if the cache is missing or unreadable
+     */
+    public Snapshot load() {
+        if (!file.exists()) {
+            return Snapshot.EMPTY;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return Snapshot.EMPTY;
+            }
+
+            String etag = readString(in);
+            String lastModified = readString(in);
+
+            int count = in.readInt();
+
+            if (count < 0) {
+                return Snapshot.EMPTY;
+            }
+
+            PictureStore.Builder pictures = new PictureStore.Builder(Math.min(count, 1024));
+
+            for (int i = 0; i < count; i++) {
+                pictures.add(
+                        readString(in),
+                        authors.intern(readString(in)),
+                        in.readLong(),
+                        in.readLong(),
+                        readString(in),
+                        readString(in));
+            }
+
+            return new Snapshot(pictures.build(), etag, lastModified);
+        } catch (IOException | RuntimeException e) {
+            // A damaged cache is treated as empty and gets replaced by the next download
+            return Snapshot.EMPTY;
+        }
+    }
+
+    /**
+     * Replaces the cached pictures. This performs disk IO and should not run on the main thread.
+     *
+     * The pictures are written to a temporary file first, so a failed write never leaves a
+     *  partial cache behind.
+     *
+     * @param pictures     The pictures to cache
+     * @param etag         The ETag header of the response the pictures came from, may be null
+     * @param lastModified The Last-Modified header of the response the pictures came from, may be null
+     * @throws IOException If the cache file could not be written
+     */
+    public void save(List<Picture> pictures, String etag, String lastModified) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, etag);
+            writeString(out, lastModified);
+
+            out.writeInt(pictures.size());
+
+            for (Picture picture : pictures) {
+                writeString(out, picture.id);
+                writeString(out, picture.author);
+                out.writeLong(picture.width);
+                out.writeLong(picture.height);
+                writeString(out, picture.url);
+                writeString(out, picture.download_url);
+            }
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Unable to replace picture cache " + file);
+        }
+    }
+
+    /**
+     * Removes the cached pictures.
+     */
+    public void clear() {
+        file.delete();
+    }
+
+    /**
+     * Writes a string that may be null.
+     *
+     * @param out   The stream to write to
+     * @param value The string to write
+     * @throws IOException If the string could not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    /**
+     * Reads a string that may be null.
+     *
+     * @param in The stream to read from
+     * @return The string that was read
+     * @throws IOException If the string could not be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
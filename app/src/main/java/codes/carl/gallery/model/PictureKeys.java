@@ -0,0 +1,34 @@
+package codes.carl.gallery.model;
+
+/**
+ * A list of pictures that can tell which picture is at a position without building it.
+ *
+ * Lists stored column by column, such as {@link PictureStore}, build a new picture each time
+ *  one is read. Comparing two galleries reads every position, often more than once, so it goes
+ *  through these keys instead and no pictures are built for it.
+ */
+public interface PictureKeys {
+
+    /**
+     * Marks a picture whose id is not a plain number.
+     */
+    int NO_NUMERIC_ID = -1;
+
+    /**
+     * Gets the id of the picture at a position as a number.
+     *
+     * @param index The position of the picture
+     * @return The id, or {@link #NO_NUMERIC_ID} if it is not a plain number
+     * @see PictureStore#numericId(String)
+     */
+    int getNumericId(int index);
+
+    /**
+     * Gets the fingerprint of the picture at a position.
+     *
+     * @param index The position of the picture
+     * @return The fingerprint
+     * @see Picture#fingerprint()
+     */
+    long getFingerprint(int index);
+}
@@ -0,0 +1,644 @@
+package codes.carl.gallery.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A read only list of pictures stored column by column in primitive arrays, instead of as one
+ *  object with four strings per picture.
+ *
+ * Ids are stored as ints, each distinct author name is stored once and referenced by index, and
+ *  the download url is not stored at all since Lorem Picsum builds it from the id and size.
+ *  Only the web page url is kept as a string per picture. {@link #get(int)} builds a
+ *  {@link Picture} from the columns each time it is called, sharing the stored strings, so the
+ *  pictures handed out are short lived views rather than something the gallery holds on to.
+ *  Code that reads every picture, such as comparing two galleries, should use the column
+ *  accessors and {@link PictureKeys} instead, which build nothing.
+ *
+ * Pictures that don't fit the columns, such as ones with a non numeric id or a download url in
+ *  another format, are kept as they are and handed out unchanged.
+ */
+public class PictureStore extends AbstractList<Picture> implements RandomAccess, PictureKeys {
+
+    /**
+     * The start of every Lorem Picsum download url, followed by id/width/height.
+     */
+    static final String DOWNLOAD_URL_PREFIX = "https://picsum.photos/id/";
+
+    /**
+     * Marks a picture without an author, or whose id is not stored in the id column.
+     */
+    private static final int NONE = NO_NUMERIC_ID;
+
+    /**
+     * The picture ids.
+     */
+    private final int[] ids;
+
+    /**
+     * The picture widths in pixels.
+     */
+    private final long[] widths;
+
+    /**
+     * The picture heights in pixels.
+     */
+    private final long[] heights;
+
+    /**
+     * The index of each picture's author in the author table.
+     */
+    private final int[] authorIndexes;
+
+    /**
+     * Each distinct author name, stored once.
+     */
+    private final String[] authors;
+
+    /**
+     * The web page url of each picture.
+     */
+    private final String[] urls;
+
+    /**
+     * The fingerprint of each picture, calculated once as it is added.
+     */
+    private final long[] fingerprints;
+
+    /**
+     * The pictures that don't fit the columns, by position.
+     */
+    private final Map<Integer, Picture> irregular;
+
+    /**
+     * The number of pictures.
+     */
+    private final int size;
+
+    /**
+     * Constructs a picture store from a builder, sharing its arrays.
+     *
+     * @param builder The builder holding the columns
+     */
+    private PictureStore(Builder builder) {
+        this.ids = builder.ids;
+        this.widths = builder.widths;
+        this.heights = builder.heights;
+        this.authorIndexes = builder.authorIndexes;
+        this.authors = Arrays.copyOf(builder.authors, builder.authorCount);
+        this.urls = builder.urls;
+        this.fingerprints = builder.fingerprints;
+        this.irregular = builder.irregular;
+        this.size = builder.size;
+    }
+
+    /**
+     * Builds a picture from the stored columns. The picture is a new object each time, and is
+     *  equal to the picture that was added.
+     *
+     * @param index The position of the picture
+     * @return The picture
+     */
+    @Override
+    public Picture get(int index) {
+        checkIndex(index);
+
+        Picture picture = irregular(index);
+        if (picture != null) {
+            return picture;
+        }
+
+        return new Picture(String.valueOf(ids[index]), getAuthor(index), widths[index], heights[index],
+                urls[index], downloadUrl(ids[index], widths[index], heights[index]), fingerprints[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the author of a picture without building the picture. The same string is returned
+     *  for every picture by the same author.
+     *
+     * @param index The position of the picture
+     * @return The author name, may be null
+     */
+    public String getAuthor(int index) {
+        checkIndex(index);
+
+        int author = authorIndexes[index];
+        return author == NONE ? null : authors[author];
+    }
+
+    /**
+     * Gets the position of a picture's author in the author table, which is the same for every
+     *  picture by the same author.
+     *
+     * @param index The position of the picture
+     * @return The author position, less than {@link #getAuthorCount()}, or -1 if there is no author
+     */
+    public int getAuthorIndex(int index) {
+        checkIndex(index);
+        return authorIndexes[index];
+    }
+
+    /**
+     * Gets the width of a picture without building the picture.
+     *
+     * @param index The position of the picture
+     * @return The width in pixels
+     */
+    public long getWidth(int index) {
+        checkIndex(index);
+        return widths[index];
+    }
+
+    /**
+     * Gets the height of a picture without building the picture.
+     *
+     * @param index The position of the picture
+     * @return The height in pixels
+     */
+    public long getHeight(int index) {
+        checkIndex(index);
+        return heights[index];
+    }
+
+    /**
+     * Gets the total pixel area of a picture without building the picture.
+     *
+     * @param index The position of the picture
+     * @return The area of the picture in pixels
+     * @see Picture#totalPixelsSize()
+     */
+    public long getArea(int index) {
+        checkIndex(index);
+        return Picture.pixelArea(widths[index], heights[index]);
+    }
+
+    /**
+     * Gets the id of a picture as a number without building the picture.
+     *
+     * @param index The position of the picture
+     * @return The id, or {@link #NO_NUMERIC_ID} if it is not a plain number
+     */
+    @Override
+    public int getNumericId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    /**
+     * Gets the fingerprint of a picture without building the picture.
+     *
+     * @param index The position of the picture
+     * @return The fingerprint
+     * @see Picture#fingerprint()
+     */
+    @Override
+    public long getFingerprint(int index) {
+        checkIndex(index);
+        return fingerprints[index];
+    }
+
+    /**
+     * Gets the number of distinct author names stored.
+     *
+     * @return The author count
+     */
+    public int getAuthorCount() {
+        return authors.length;
+    }
+
+    /**
+     * Check if this store starts with the same pictures as another, comparing the columns
+     *  without building any pictures.
+     *
+     * @param prefix The pictures this store may start with
+     * @return Whether every picture of the other store is at the same position in this one
+     */
+    public boolean startsWith(PictureStore prefix) {
+        if (prefix.size > size) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.size; i++) {
+            if (fingerprints[i] != prefix.fingerprints[i]
+                    || ids[i] != prefix.ids[i] || widths[i] != prefix.widths[i] || heights[i] != prefix.heights[i]
+                    || !Objects.equals(getAuthor(i), prefix.getAuthor(i))
+                    || !Objects.equals(urls[i], prefix.urls[i])
+                    || !Objects.equals(irregular(i), prefix.irregular(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the picture at a position if it doesn't fit the columns.
+     *
+     * @param index The position of the picture
+     * @return The picture, or null if it is stored in the columns
+     */
+    private Picture irregular(int index) {
+        // Usually there are none, and looking one up would box the position
+        return irregular.isEmpty() ? null : irregular.get(index);
+    }
+
+    /**
+     * Reads a picture id stored as a number in its usual decimal form.
+     *
+     * @param id The picture id
+     * @return The id as an int, or {@link #NO_NUMERIC_ID} if it can't be stored as an int and
+     *  turned back into the same string
+     */
+    public static int numericId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 9 || (id.length() > 1 && id.charAt(0) == '0')) {
+            return NO_NUMERIC_ID;
+        }
+
+        int value = 0;
+
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return NO_NUMERIC_ID;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Builds the download url Lorem Picsum gives a picture.
+     *
+     * @param id     The picture id
+     * @param width  The width in pixels
+     * @param height The height in pixels
+     * @return The download url
+     */
+    static String downloadUrl(int id, long width, long height) {
+        return DOWNLOAD_URL_PREFIX + id + '/' + width + '/' + height;
+    }
+
+    /**
+     * Checks that a position is within the store.
+     *
+     * @param index The position
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+    }
+
+    /**
+     * Builds a picture store one picture at a time.
+     */
+    public static class Builder {
+
+        /**
+         * The number of pictures room is made for the first time.
+         */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * The picture ids.
+         */
+        private int[] ids;
+
+        /**
+         * The picture widths in pixels.
+         */
+        private long[] widths;
+
+        /**
+         * The picture heights in pixels.
+         */
+        private long[] heights;
+
+        /**
+         * The index of each picture's author in the author table.
+         */
+        private int[] authorIndexes;
+
+        /**
+         * The web page url of each picture.
+         */
+        private String[] urls;
+
+        /**
+         * The fingerprint of each picture.
+         */
+        private long[] fingerprints;
+
+        /**
+         * Each distinct author name, in the order first added.
+         */
+        private String[] authors = new String[16];
+
+        /**
+         * The number of distinct author names.
+         */
+        private int authorCount;
+
+        /**
+         * The position of each author name in the author table.
+         */
+        private final Map<String, Integer> authorTable = new HashMap<>();
+
+        /**
+         * The pictures that don't fit the columns, by position.
+         */
+        private Map<Integer, Picture> irregular = new HashMap<>();
+
+        /**
+         * The number of pictures added.
+         */
+        private int size;
+
+        /**
+         * Whether {@link #build()} was called. The arrays then belong to the store, so adding
+         *  more pictures copies them first.
+         */
+        private boolean built;
+
+        /**
+         * Constructs a builder for an empty store.
+         */
+        public Builder() {
+            this(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Constructs a builder with room for a number of pictures before growing.
+         *
+         * @param capacity The number of pictures expected
+         */
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 1);
+
+            ids = new int[capacity];
+            widths = new long[capacity];
+            heights = new long[capacity];
+            authorIndexes = new int[capacity];
+            urls = new String[capacity];
+            fingerprints = new long[capacity];
+        }
+
+        /**
+         * Adds a picture from its fields, without creating a picture object for it.
+         *
+         * @param id          The picture id
+         * @param author      The picture author
+         * @param width       The width in pixels
+         * @param height      The height in pixels
+         * @param url         The web page url
+         * @param downloadUrl The download url
+         * @return This builder
+         */
+        public Builder add(String id, String author, long width, long height, String url, String downloadUrl) {
+            int numericId = numericId(id);
+
+            if (numericId == NONE || !isDownloadUrl(downloadUrl, numericId, width, height)) {
+                return addIrregular(new Picture(id, author, width, height, url, downloadUrl));
+            }
+
+            int index = append(author, width, height, url);
+            ids[index] = numericId;
+            fingerprints[index] = Picture.fingerprint(id, author, width, height, url, downloadUrl);
+
+            return this;
+        }
+
+        /**
+         * Adds a picture.
+         *
+         * @param picture The picture
+         * @return This builder
+         */
+        public Builder add(Picture picture) {
+            int numericId = numericId(picture.getId());
+
+            if (numericId == NONE || !isDownloadUrl(picture.getDownload_url(), numericId, picture.getWidth(), picture.getHeight())) {
+                return addIrregular(picture);
+            }
+
+            int index = append(picture.getAuthor(), picture.getWidth(), picture.getHeight(), picture.getUrl());
+            ids[index] = numericId;
+            fingerprints[index] = picture.fingerprint();
+
+            return this;
+        }
+
+        /**
+         * Adds pictures in order. Pictures from another store are copied column by column,
+         *  without building them.
+         *
+         * @param pictures The pictures
+         * @return This builder
+         */
+        public Builder addAll(List<Picture> pictures) {
+            if (!(pictures instanceof PictureStore)) {
+                for (Picture picture : pictures) {
+                    add(picture);
+                }
+
+                return this;
+            }
+
+            PictureStore store = (PictureStore) pictures;
+            ensureCapacity(size + store.size);
+
+            for (int i = 0; i < store.size; i++) {
+                Picture picture = store.irregular(i);
+
+                if (picture != null) {
+                    addIrregular(picture);
+                } else {
+                    int index = append(store.getAuthor(i), store.widths[i], store.heights[i], store.urls[i]);
+                    ids[index] = store.ids[i];
+                    fingerprints[index] = store.fingerprints[i];
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * Builds the store. The builder can keep adding pictures for another store afterwards.
+         *
+         * @return The picture store
+         */
+        public PictureStore build() {
+            built = true;
+            return new PictureStore(this);
+        }
+
+        /**
+         * Adds a picture that doesn't fit the columns, keeping the picture itself.
+         *
+         * @param picture The picture
+         * @return This builder
+         */
+        private Builder addIrregular(Picture picture) {
+            int index = append(picture.getAuthor(), picture.getWidth(), picture.getHeight(), null);
+            ids[index] = NONE;
+            fingerprints[index] = picture.fingerprint();
+            irregular.put(index, picture);
+
+            return this;
+        }
+
+        /**
+         * Adds the column values shared by every picture.
+         *
+         * @param author The picture author
+         * @param width  The width in pixels
+         * @param height The height in pixels
+         * @param url    The web page url
+         * @return The position of the new picture
+         */
+        private int append(String author, long width, long height, String url) {
+            ensureCapacity(size + 1);
+
+            int index = size++;
+            authorIndexes[index] = authorIndex(author);
+            widths[index] = width;
+            heights[index] = height;
+            urls[index] = url;
+
+            return index;
+        }
+
+        /**
+         * Gets the position of an author name in the author table, adding it the first time.
+         *
+         * @param author The author name
+         * @return The position in the author table
+         */
+        private int authorIndex(String author) {
+            if (author == null) {
+                return NONE;
+            }
+
+            Integer index = authorTable.get(author);
+            if (index == null) {
+                if (authorCount == authors.length) {
+                    authors = Arrays.copyOf(authors, authorCount * 2);
+                }
+
+                index = authorCount++;
+                authors[index] = author;
+                authorTable.put(author, index);
+            }
+
+            return index;
+        }
+
+        /**
+         * Makes room for more pictures, copying the arrays if a built store is using them.
+         *
+         * @param capacity The number of pictures to make room for
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length && !built) {
+                return;
+            }
+
+            int newCapacity = Math.max(capacity, ids.length * 2);
+
+            ids = Arrays.copyOf(ids, newCapacity);
+            widths = Arrays.copyOf(widths, newCapacity);
+            heights = Arrays.copyOf(heights, newCapacity);
+            authorIndexes = Arrays.copyOf(authorIndexes, newCapacity);
+            urls = Arrays.copyOf(urls, newCapacity);
+            fingerprints = Arrays.copyOf(fingerprints, newCapacity);
+            irregular = new HashMap<>(irregular);
+            built = false;
+        }
+
+        /**
+         * Check if a download url is the one Lorem Picsum builds from the id and size, without
+         *  building it.
+         *
+         * @param downloadUrl The download url
+         * @param id          The picture id
+         * @param width       The width in pixels
+         * @param height      The height in pixels
+         * @return Whether the download url can be left out and built again when needed
+         */
+        private static boolean isDownloadUrl(String downloadUrl, int id, long width, long height) {
+            if (downloadUrl == null || !downloadUrl.startsWith(DOWNLOAD_URL_PREFIX)) {
+                return false;
+            }
+
+            int position = matchNumber(downloadUrl, DOWNLOAD_URL_PREFIX.length(), id);
+            position = matchSlash(downloadUrl, position);
+            position = matchNumber(downloadUrl, position, width);
+            position = matchSlash(downloadUrl, position);
+            position = matchNumber(downloadUrl, position, height);
+
+            return position == downloadUrl.length();
+        }
+
+        /**
+         * Matches the decimal form of a number in a string.
+         *
+         * @param text     The string
+         * @param position Where the number should start, or -1 if an earlier match failed
+         * @param value    The number
+         * @return The position after the number, or -1 if it doesn't match
+         */
+        private static int matchNumber(String text, int position, long value) {
+            if (position < 0 || value == Long.MIN_VALUE) {
+                return -1;
+            }
+
+            if (value < 0) {
+                if (position >= text.length() || text.charAt(position) != '-') {
+                    return -1;
+                }
+
+                position++;
+                value = -value;
+            }
+
+            long divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+
+            for (; divisor > 0; divisor /= 10) {
+                if (position >= text.length() || text.charAt(position) != (char) ('0' + value / divisor % 10)) {
+                    return -1;
+                }
+
+                position++;
+            }
+
+            return position;
+        }
+
+        /**
+         * Matches a slash in a string.
+         *
+         * @param text     The string
+         * @param position Where the slash should be, or -1 if an earlier match failed
+         * @return The position after the slash, or -1 if it doesn't match
+         */
+        private static int matchSlash(String text, int position) {
+            return position >= 0 && position < text.length() && text.charAt(position) == '/' ? position + 1 : -1;
+        }
+    }
+}
@@ -2,12 +2,18 @@ package codes.carl.gallery.model.views;
 
 import androidx.lifecycle.ViewModel;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.network.Client;
+import codes.carl.gallery.network.PageLoader;
+import codes.carl.gallery.utils.sort.SortIndex;
+import codes.carl.gallery.utils.sort.SortPipeline;
 import codes.carl.gallery.utils.sort.SortType;
 import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Handles the view model data for the Gallery Activity.
@@ -17,9 +23,9 @@ import io.reactivex.disposables.CompositeDisposable;
 public class GalleryViewModel extends ViewModel {
 
     /**
-     * The pictures displayed in the gallery view.
+     * The pictures displayed in the gallery view, in server order and in each sorted order.
      */
-    private List<Picture> pictures = new ArrayList<>();
+    private SortIndex sortIndex;
 
     /**
      * A picture selected to be viewed in a web info modal.
@@ -46,28 +52,87 @@ public class GalleryViewModel extends ViewModel {
      */
     private CompositeDisposable rxDisposables = new CompositeDisposable();
 
+    /**
+     * Downloads the gallery pictures from Lorem Picsum one page at a time.
+     */
+    private PageLoader pageLoader;
+
+    /**
+     * Sorts the gallery pictures off the main thread.
+     */
+    private final SortPipeline sortPipeline = new SortPipeline(Schedulers.computation());
+
     /**
      * Constructs a new empty Gallery View Model.
      */
     public GalleryViewModel() {
+        pageLoader = new PageLoader(Client.getInstance().getPicsumAPI());
+        sortIndex = new SortIndex(Collections.emptyList(), Locale.getDefault(), Client.getInstance().getAuthorDictionary());
     }
 
     /**
-     * Gets the gallery pictures.
+     * Gets the gallery pictures, sorted by the current sort type. If that order has not been
+     *  worked out yet the pictures are sorted on the calling thread, so the main thread should
+     *  use {@link #requestSort()} instead.
      *
-     * @return The gallery pictures.
+     * @return A read only list of the gallery pictures.
      */
     public List<Picture> getPictures() {
-        return pictures;
+        return sortIndex.sorted(sortType);
     }
 
     /**
-     * Sets the gallery pictures.
+     * Gets the gallery pictures in the order they came from the server.
      *
-     * @param pictures The gallery pictures.
+     * @return A read only list of the gallery pictures.
+     */
+    public List<Picture> getServerPictures() {
+        return sortIndex.getPictures();
+    }
+
+    /**
+     * Sets the gallery pictures. The sorted orders of the previous pictures are merged with the
+     *  new pictures when next needed, so only pictures that were not in the gallery are sorted.
+     *
+     * @param pictures The gallery pictures, in the order they came from the server.
      */
     public void setPictures(List<Picture> pictures) {
-        this.pictures = pictures;
+        this.sortIndex = sortIndex.update(pictures);
+    }
+
+    /**
+     * Gets the gallery pictures along with their sorted orders.
+     *
+     * @return The sort index of the gallery pictures
+     */
+    public SortIndex getSortIndex() {
+        return sortIndex;
+    }
+
+    /**
+     * Gets the pipeline that sorts the gallery pictures off the main thread.
+     *
+     * @return The sort pipeline
+     */
+    public SortPipeline getSortPipeline() {
+        return sortPipeline;
+    }
+
+    /**
+     * Requests the gallery pictures sorted by the current sort type. The sorted pictures are
+     *  published by the {@link #getSortPipeline() sort pipeline}.
+     */
+    public void requestSort() {
+        sortPipeline.sort(sortIndex, sortType);
+    }
+
+    /**
+     * Gets the page loader used to download the gallery pictures.
+     *
+     * @return The page loader
+     */
+    public PageLoader getPageLoader() {
+        return pageLoader;
     }
 
     /**
@@ -6,6 +6,8 @@ import codes.carl.gallery.model.Picture;
 import io.reactivex.Observable;
 import retrofit2.Response;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Query;
 
 /**
  * Describes the Lorem Picsum API
@@ -15,11 +17,29 @@ import retrofit2.http.GET;
 public interface API {
 
     /**
-     * Gets a list of images from Lorem Picsum.
+     * Gets a single page of images from Lorem Picsum.
      *
-     * @return A list of images
+     * @param page  The page to get, starting at 1
+     * @param limit The maximum number of images on the page
+     * @return A page of images
      */
     @GET("list")
-    Observable<Response<List<Picture>>> getImageList();
+    Observable<Response<List<Picture>>> getImagePage(@Query("page") int page, @Query("limit") int limit);
+
+    /**
+     * Gets a single page of images from Lorem Picsum only if it changed since it was last
+     *  downloaded. An unchanged page is answered with a 304 Not Modified response and no body.
+     *
+     * @param etag         The ETag of the previously downloaded page, omitted if null
+     * @param lastModified The Last-Modified date of the previously downloaded page, omitted if null
+     * @param page         The page to get, starting at 1
+     * @param limit        The maximum number of images on the page
+     * @return A page of images, or a 304 Not Modified response
+     */
+    @GET("list")
+    Observable<Response<List<Picture>>> revalidateImagePage(@Header("If-None-Match") String etag,
+                                                            @Header("If-Modified-Since") String lastModified,
+                                                            @Query("page") int page,
+                                                            @Query("limit") int limit);
 
 }
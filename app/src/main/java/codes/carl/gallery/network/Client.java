@@ -1,5 +1,17 @@
 package codes.carl.gallery.network;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import codes.carl.gallery.BuildConfig;
+import codes.carl.gallery.model.AuthorDictionary;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -8,6 +20,10 @@ import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
  * Handles network communication for the Gallery app.
+ *
+ * The API calls and the image downloads share one connection pool and dispatcher, so images reuse
+ *  the warm connections to Lorem Picsum instead of opening their own, and the number of requests
+ *  in flight is limited across both.
  */
 public class Client {
 
@@ -22,9 +38,489 @@ public class Client {
     private API picsumAPI;
 
     /**
-     * A singleton instance of the network client.
+     * The HTTP client images are downloaded with.
      */
-    private static Client sInstance;
+    private OkHttpClient imageClient;
+
+    /**
+     * Holds the shared copy of each author name, for every picture list the app reads.
+     */
+    private final AuthorDictionary authorDictionary = new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY);
+
+    /**
+     * Holds the singleton instance of the network client.
+     */
+    private static final Holder sHolder = new Holder();
+
+    /**
+     * Constructs a network client. The app shares one client through {@link #getInstance()}, so
+     *  this is for building clients with their own connections, such as in tests.
+     *
+     * @param config The network client configuration
+     */
+    public Client(Config config) {
+        init(config);
+    }
+
+    /**
+     * Configures the diagnostics, response cache and connection limits of the network client.
+     */
+    public static class Config {
+
+        /**
+         * The base URL of the API.
+         */
+        private final String baseUrl;
+
+        /**
+         * How much of each request and response is logged.
+         */
+        private final HttpLoggingInterceptor.Level loggingLevel;
+
+        /**
+         * Whether the duration of each request is logged.
+         */
+        private final boolean timingEnabled;
+
+        /**
+         * The directory API responses are cached in, or null to not cache them.
+         */
+        private final File cacheDirectory;
+
+        /**
+         * The most bytes of API responses cached.
+         */
+        private final long cacheSize;
+
+        /**
+         * The most requests in flight at once.
+         */
+        private final int maxRequests;
+
+        /**
+         * The most requests in flight at once to a single host.
+         */
+        private final int maxRequestsPerHost;
+
+        /**
+         * The most idle connections kept open for reuse.
+         */
+        private final int maxIdleConnections;
+
+        /**
+         * How long an idle connection is kept open, in seconds.
+         */
+        private final long keepAliveSeconds;
+
+        /**
+         * How long to wait for a connection, in milliseconds.
+         */
+        private final long connectTimeoutMillis;
+
+        /**
+         * How long to wait for data from a connection, in milliseconds.
+         */
+        private final long readTimeoutMillis;
+
+        /**
+         * How long to wait to send data on a connection, in milliseconds.
+         */
+        private final long writeTimeoutMillis;
+
+        /**
+         * Interceptors added to every request, API calls and image downloads alike.
+         */
+        private final List<Interceptor> interceptors;
+
+        /**
+         * Constructs a network client configuration.
+         *
+         * @param builder The builder holding the configuration values
+         */
+        private Config(Builder builder) {
+            this.baseUrl = builder.baseUrl;
+            this.loggingLevel = builder.loggingLevel;
+            this.timingEnabled = builder.timingEnabled;
+            this.cacheDirectory = builder.cacheDirectory;
+            this.cacheSize = builder.cacheSize;
+            this.maxRequests = builder.maxRequests;
+            this.maxRequestsPerHost = builder.maxRequestsPerHost;
+            this.maxIdleConnections = builder.maxIdleConnections;
+            this.keepAliveSeconds = builder.keepAliveSeconds;
+            this.connectTimeoutMillis = builder.connectTimeoutMillis;
+            this.readTimeoutMillis = builder.readTimeoutMillis;
+            this.writeTimeoutMillis = builder.writeTimeoutMillis;
+            this.interceptors = Collections.unmodifiableList(new ArrayList<>(builder.interceptors));
+        }
+
+        /**
+         * Creates the configuration for the current build type. Debug builds log full request
+         *  and response bodies along with request timing, release builds log nothing.
+         *
+         * @return The configuration for the current build type
+         */
+        public static Config forBuildType() {
+            return forBuildType(null);
+        }
+
+        /**
+         * Creates the configuration for the current build type, caching API responses in a
+         *  directory.
+         *
+         * @param cacheDirectory The directory API responses are cached in, or null to not cache them
+         * @return The configuration for the current build type
+         */
+        public static Config forBuildType(File cacheDirectory) {
+            return new Builder()
+                    .loggingLevel(HttpLoggingInterceptor.Level.valueOf(BuildConfig.HTTP_LOG_LEVEL))
+                    .timingEnabled(BuildConfig.HTTP_TIMING)
+                    .cacheDirectory(cacheDirectory)
+                    .build();
+        }
+
+        /**
+         * Gets the base URL of the API.
+         *
+         * @return The base URL
+         */
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        /**
+         * Gets how much of each request and response is logged.
+         *
+         * @return The logging level
+         */
+        public HttpLoggingInterceptor.Level getLoggingLevel() {
+            return loggingLevel;
+        }
+
+        /**
+         * Check if the duration of each request is logged.
+         *
+         * @return Whether request timing is logged
+         */
+        public boolean isTimingEnabled() {
+            return timingEnabled;
+        }
+
+        /**
+         * Gets the directory API responses are cached in.
+         *
+         * @return The cache directory, or null if responses are not cached
+         */
+        public File getCacheDirectory() {
+            return cacheDirectory;
+        }
+
+        /**
+         * Gets the most bytes of API responses cached.
+         *
+         * @return The cache size in bytes
+         */
+        public long getCacheSize() {
+            return cacheSize;
+        }
+
+        /**
+         * Gets the most requests in flight at once.
+         *
+         * @return The request limit
+         */
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        /**
+         * Gets the most requests in flight at once to a single host.
+         *
+         * @return The request limit per host
+         */
+        public int getMaxRequestsPerHost() {
+            return maxRequestsPerHost;
+        }
+
+        /**
+         * Gets the most idle connections kept open for reuse.
+         *
+         * @return The idle connection limit
+         */
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        /**
+         * Gets how long an idle connection is kept open.
+         *
+         * @return The keep alive duration in seconds
+         */
+        public long getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        /**
+         * Gets how long to wait for a connection.
+         *
+         * @return The connect timeout in milliseconds
+         */
+        public long getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        /**
+         * Gets how long to wait for data from a connection.
+         *
+         * @return The read timeout in milliseconds
+         */
+        public long getReadTimeoutMillis() {
+            return readTimeoutMillis;
+        }
+
+        /**
+         * Gets how long to wait to send data on a connection.
+         *
+         * @return The write timeout in milliseconds
+         */
+        public long getWriteTimeoutMillis() {
+            return writeTimeoutMillis;
+        }
+
+        /**
+         * Gets the interceptors added to every request.
+         *
+         * @return A read only list of the interceptors, in the order they run
+         */
+        public List<Interceptor> getInterceptors() {
+            return interceptors;
+        }
+
+        /**
+         * Builds a network client configuration.
+         */
+        public static class Builder {
+
+            /**
+             * The base URL of the API.
+             */
+            private String baseUrl = BASE_API_URL;
+
+            /**
+             * How much of each request and response is logged.
+             */
+            private HttpLoggingInterceptor.Level loggingLevel = HttpLoggingInterceptor.Level.NONE;
+
+            /**
+             * Whether the duration of each request is logged.
+             */
+            private boolean timingEnabled = false;
+
+            /**
+             * The directory API responses are cached in, or null to not cache them.
+             */
+            private File cacheDirectory = null;
+
+            /**
+             * The most bytes of API responses cached.
+             */
+            private long cacheSize = 10 * 1024 * 1024;
+
+            /**
+             * The most requests in flight at once.
+             */
+            private int maxRequests = 32;
+
+            /**
+             * The most requests in flight at once to a single host. Higher than OkHttp's default of
+             *  5, since images come from only a couple of hosts.
+             */
+            private int maxRequestsPerHost = 8;
+
+            /**
+             * The most idle connections kept open for reuse.
+             */
+            private int maxIdleConnections = 8;
+
+            /**
+             * How long an idle connection is kept open, in seconds.
+             */
+            private long keepAliveSeconds = 5 * 60;
+
+            /**
+             * How long to wait for a connection, in milliseconds.
+             */
+            private long connectTimeoutMillis = 10_000;
+
+            /**
+             * How long to wait for data from a connection, in milliseconds.
+             */
+            private long readTimeoutMillis = 20_000;
+
+            /**
+             * How long to wait to send data on a connection, in milliseconds.
+             */
+            private long writeTimeoutMillis = 10_000;
+
+            /**
+             * Interceptors added to every request.
+             */
+            private final List<Interceptor> interceptors = new ArrayList<>();
+
+            /**
+             * Sets the base URL of the API.
+             *
+             * @param baseUrl The base URL, ending with a slash
+             * @return This builder
+             */
+            public Builder baseUrl(String baseUrl) {
+                this.baseUrl = baseUrl;
+                return this;
+            }
+
+            /**
+             * Sets how much of each request and response is logged. Anything above
+             *  {@link HttpLoggingInterceptor.Level#HEADERS} buffers every response body in memory.
+             *
+             * @param loggingLevel The logging level
+             * @return This builder
+             */
+            public Builder loggingLevel(HttpLoggingInterceptor.Level loggingLevel) {
+                this.loggingLevel = loggingLevel;
+                return this;
+            }
+
+            /**
+             * Sets whether the duration of each request is logged.
+             *
+             * @param timingEnabled Whether request timing is logged
+             * @return This builder
+             */
+            public Builder timingEnabled(boolean timingEnabled) {
+                this.timingEnabled = timingEnabled;
+                return this;
+            }
+
+            /**
+             * Sets the directory API responses are cached in.
+             *
+             * @param cacheDirectory The cache directory, or null to not cache responses
+             * @return This builder
+             */
+            public Builder cacheDirectory(File cacheDirectory) {
+                this.cacheDirectory = cacheDirectory;
+                return this;
+            }
+
+            /**
+             * Sets the most bytes of API responses cached.
+             *
+             * @param cacheSize The cache size in bytes
+             * @return This builder
+             */
+            public Builder cacheSize(long cacheSize) {
+                this.cacheSize = cacheSize;
+                return this;
+            }
+
+            /**
+             * Sets the most requests in flight at once, across API calls and image downloads.
+             *
+             * @param maxRequests The request limit
+             * @return This builder
+             */
+            public Builder maxRequests(int maxRequests) {
+                this.maxRequests = maxRequests;
+                return this;
+            }
+
+            /**
+             * Sets the most requests in flight at once to a single host.
+             *
+             * @param maxRequestsPerHost The request limit per host
+             * @return This builder
+             */
+            public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+                this.maxRequestsPerHost = maxRequestsPerHost;
+                return this;
+            }
+
+            /**
+             * Sets the most idle connections kept open for reuse.
+             *
+             * @param maxIdleConnections The idle connection limit
+             * @return This builder
+             */
+            public Builder maxIdleConnections(int maxIdleConnections) {
+                this.maxIdleConnections = maxIdleConnections;
+                return this;
+            }
+
+            /**
+             * Sets how long an idle connection is kept open.
+             *
+             * @param keepAliveSeconds The keep alive duration in seconds
+             * @return This builder
+             */
+            public Builder keepAliveSeconds(long keepAliveSeconds) {
+                this.keepAliveSeconds = keepAliveSeconds;
+                return this;
+            }
+
+            /**
+             * Sets how long to wait for a connection.
+             *
+             * @param connectTimeoutMillis The connect timeout in milliseconds, 0 for none
+             * @return This builder
+             */
+            public Builder connectTimeoutMillis(long connectTimeoutMillis) {
+                this.connectTimeoutMillis = connectTimeoutMillis;
+                return this;
+            }
+
+            /**
+             * Sets how long to wait for data from a connection.
+             *
+             * @param readTimeoutMillis The read timeout in milliseconds, 0 for none
+             * @return This builder
+             */
+            public Builder readTimeoutMillis(long readTimeoutMillis) {
+                this.readTimeoutMillis = readTimeoutMillis;
+                return this;
+            }
+
+            /**
+             * Sets how long to wait to send data on a connection.
+             *
+             * @param writeTimeoutMillis The write timeout in milliseconds, 0 for none
+             * @return This builder
+             */
+            public Builder writeTimeoutMillis(long writeTimeoutMillis) {
+                this.writeTimeoutMillis = writeTimeoutMillis;
+                return this;
+            }
+
+            /**
+             * Adds an interceptor to every request, API calls and image downloads alike. They
+             *  run in the order added, before the logging and timing interceptors.
+             *
+             * @param interceptor The interceptor
+             * @return This builder
+             */
+            public Builder addInterceptor(Interceptor interceptor) {
+                interceptors.add(interceptor);
+                return this;
+            }
+
+            /**
+             * Builds the network client configuration.
+             *
+             * @return The configuration
+             */
+            public Config build() {
+                return new Config(this);
+            }
+        }
+    }
 
     /**
      * Gets a singleton instance of the network client.
@@ -32,12 +528,18 @@ public class Client {
      * @return The network client
      */
     public static Client getInstance() {
-        if (sInstance == null) {
-            sInstance = new Client();
-            sInstance.init();
-        }
+        return sHolder.get();
+    }
 
-        return sInstance;
+    /**
+     * Sets the configuration the network client is built with. Must be called before the client
+     *  is first used, usually when the application starts.
+     *
+     * @param config The network client configuration
+     * @throws IllegalStateException If the client was already built
+     */
+    public static void configure(Config config) {
+        sHolder.configure(config);
     }
 
     /**
@@ -49,28 +551,168 @@ public class Client {
         return picsumAPI;
     }
 
+    /**
+     * Gets the author dictionary the picture lists are parsed with. The picture cache and the
+     *  sort index use it too, so each author name is only kept and reduced to a sort key once.
+     *
+     * @return The author dictionary
+     */
+    public AuthorDictionary getAuthorDictionary() {
+        return authorDictionary;
+    }
+
+    /**
+     * Gets the HTTP client to download images with. It shares its connections and request
+     *  limits with the API calls.
+     *
+     * @return The image HTTP client
+     */
+    public OkHttpClient getImageClient() {
+        return imageClient;
+    }
+
     /**
      * Creates an instance of the http client to use the Lorem Picsum API with JSON object
-     *  serialization and configured to use RxJava directly.
+     *  serialization and configured to use RxJava directly, along with the image client that
+     *  shares its connections.
+     *
+     * @param config The network client configuration
      */
-    private void init() {
-        // Adding a logging interceptor to view network activity
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+    private void init(Config config) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
 
-        final OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
-        clientBuilder.retryOnConnectionFailure(true);
-        clientBuilder.addInterceptor(loggingInterceptor);
+        OkHttpClient.Builder sharedBuilder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(config.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true);
+
+        for (Interceptor interceptor : config.getInterceptors()) {
+            sharedBuilder.addInterceptor(interceptor);
+        }
+
+        OkHttpClient sharedClient = sharedBuilder.build();
+
+        // Glide keeps downloaded images in its own disk cache, so only API responses are cached here
+        final OkHttpClient.Builder clientBuilder = sharedClient.newBuilder();
+
+        if (config.getCacheDirectory() != null) {
+            clientBuilder.cache(new Cache(config.getCacheDirectory(), config.getCacheSize()));
+        }
+
+        // Adding a logging interceptor to view network activity, left out entirely when it would log nothing
+        if (config.getLoggingLevel() != HttpLoggingInterceptor.Level.NONE) {
+            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+            loggingInterceptor.setLevel(config.getLoggingLevel());
+            clientBuilder.addInterceptor(loggingInterceptor);
+        }
+
+        if (config.isTimingEnabled()) {
+            TimingInterceptor timingInterceptor = new TimingInterceptor(HttpLoggingInterceptor.Logger.DEFAULT);
+            clientBuilder.addInterceptor(timingInterceptor);
+
+            // Image bodies are never logged, but their timing is
+            sharedClient = sharedClient.newBuilder().addInterceptor(timingInterceptor).build();
+        }
+
+        imageClient = sharedClient;
 
         OkHttpClient okHttpClient = clientBuilder.build();
 
-        // Configure the network library with JSON object serializer and RxJava behavior
+        // Configure the network library with JSON object serializer and RxJava behavior.
+        // Picture lists are parsed as they stream in, anything else falls through to Gson.
+        // Calls are enqueued rather than run on the subscribing thread, so API calls count
+        // towards the same dispatcher limits as the image downloads.
         Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
+                .addConverterFactory(PictureListConverterFactory.create(authorDictionary))
                 .addConverterFactory(GsonConverterFactory.create())
-                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.createAsync())
                 .client(okHttpClient);
 
-        retrofitBuilder.baseUrl(BASE_API_URL);
+        retrofitBuilder.baseUrl(config.getBaseUrl());
         picsumAPI = retrofitBuilder.build().create(API.class);
     }
+
+    /**
+     * Lazily builds a single network client the first time it is needed, however many threads
+     *  ask for it at once. Building a second client would open a second connection pool and
+     *  dispatcher, so the client is built under a lock and published through a volatile field.
+     */
+    public static class Holder {
+
+        /**
+         * Guards building the client and setting its configuration.
+         */
+        private final Object lock = new Object();
+
+        /**
+         * The built client, or null until it is first needed.
+         */
+        private volatile Client instance;
+
+        /**
+         * The configuration the client is built with, or null for {@link Config#forBuildType()}.
+         */
+        private Config config;
+
+        /**
+         * The number of clients built.
+         */
+        private int buildCount;
+
+        /**
+         * Gets the network client, building it the first time.
+         *
+         * @return The network client
+         */
+        public Client get() {
+            Client client = instance;
+
+            // Only the first calls take the lock, the client never changes once it is built
+            if (client == null) {
+                synchronized (lock) {
+                    client = instance;
+
+                    if (client == null) {
+                        client = new Client(config != null ? config : Config.forBuildType());
+                        buildCount++;
+                        instance = client;
+                    }
+                }
+            }
+
+            return client;
+        }
+
+        /**
+         * Sets the configuration the network client is built with.
+         *
+         * @param config The network client configuration
+         * @throws IllegalStateException If the client was already built
+         */
+        public void configure(Config config) {
+            synchronized (lock) {
+                if (instance != null) {
+                    throw new IllegalStateException("The network client is already built");
+                }
+
+                this.config = config;
+            }
+        }
+
+        /**
+         * Gets the number of clients this holder has built, which is never more than one.
+         *
+         * @return The build count
+         */
+        public int getBuildCount() {
+            synchronized (lock) {
+                return buildCount;
+            }
+        }
+    }
 }
@@ -0,0 +1,216 @@
+package codes.carl.gallery.network;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import codes.carl.gallery.model.Picture;
+import io.reactivex.Observable;
+import retrofit2.Response;
+
+/**
+ * Loads the Lorem Picsum image list one page at a time, so the gallery can be displayed as soon
+ *  as the first page arrives and the following pages can be fetched as the user scrolls.
+ */
+public class PageLoader {
+
+    /**
+     * The first page of the Lorem Picsum image list.
+     */
+    public static final int FIRST_PAGE = 1;
+
+    /**
+     * The response code for a page that has not changed since it was last downloaded.
+     */
+    public static final int NOT_MODIFIED = 304;
+
+    /**
+     * The default number of images requested per page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * The default number of images left to scroll through before the next page is requested.
+     */
+    public static final int DEFAULT_PREFETCH_DISTANCE = 20;
+
+    /**
+     * The API used to download the pages.
+     */
+    private final API api;
+
+    /**
+     * The number of images requested per page.
+     */
+    private final int pageSize;
+
+    /**
+     * The number of images left to scroll through before the next page is requested.
+     */
+    private final int prefetchDistance;
+
+    /**
+     * The next page to download.
+     */
+    private volatile int nextPage = FIRST_PAGE;
+
+    /**
+     * Whether the last page of the image list has been downloaded.
+     */
+    private volatile boolean lastPageReached = false;
+
+    /**
+     * Whether a page is currently being downloaded.
+     */
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+
+    /**
+     * Constructs a page loader with the default page size and prefetch distance.
+     *
+     * @param api The API used to download the pages
+     */
+    public PageLoader(API api) {
+        this(api, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH_DISTANCE);
+    }
+
+    /**
+     * Constructs a page loader.
+     *
+     * @param api              The API used to download the pages
+     * @param pageSize         The number of images requested per page
+     * @param prefetchDistance The number of images left to scroll through before the next page
+     *                         is requested
+     */
+    public PageLoader(API api, int pageSize, int prefetchDistance) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+
+        this.api = api;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Starts loading the image list over again from the first page.
+     * Any page still being downloaded should be disposed of by the caller before reloading.
+     *
+     * @return An observable emitting the response for the first page
+     */
+    public Observable<Response<List<Picture>>> loadFirstPage() {
+        nextPage = FIRST_PAGE;
+        lastPageReached = false;
+        loading.set(false);
+
+        return loadNextPage();
+    }
+
+    /**
+     * Starts loading the image list over again, with a first page that was previously downloaded
+     *  and is already displayed. The first page is only downloaded again if it changed on the
+     *  server, otherwise a 304 Not Modified response is emitted and loading continues from the
+     *  second page.
+     *
+     * @param etag         The ETag of the previously downloaded first page, may be null
+     * @param lastModified The Last-Modified date of the previously downloaded first page, may be null
+     * @param cachedCount  The number of images on the previously downloaded first page
+     * @return An observable emitting the response for the first page
+     */
+    public Observable<Response<List<Picture>>> revalidateFirstPage(String etag, String lastModified, int cachedCount) {
+        nextPage = FIRST_PAGE;
+        lastPageReached = false;
+        loading.set(true);
+
+        return api.revalidateImagePage(etag, lastModified, FIRST_PAGE, pageSize)
+                .doOnNext(response -> {
+                    if (response.code() == NOT_MODIFIED) {
+                        lastPageReached = cachedCount < pageSize;
+                        nextPage = FIRST_PAGE + 1;
+                    } else {
+                        onPageDownloaded(FIRST_PAGE, response);
+                    }
+                })
+                .doOnTerminate(() -> loading.set(false))
+                .doFinally(() -> loading.set(false));
+    }
+
+    /**
+     * Downloads the next page of the image list.
+     * Nothing is emitted if a page is already being downloaded or if the last page was reached.
+     *
+     * @return An observable emitting the response for the next page
+     */
+    public Observable<Response<List<Picture>>> loadNextPage() {
+        if (lastPageReached || !loading.compareAndSet(false, true)) {
+            return Observable.empty();
+        }
+
+        final int page = nextPage;
+
+        return api.getImagePage(page, pageSize)
+                .doOnNext(response -> onPageDownloaded(page, response))
+                // Finishes before the subscriber hears the page is done, so it can ask for the
+                // next one straight away, and still finishes if the download is disposed of
+                .doOnTerminate(() -> loading.set(false))
+                .doFinally(() -> loading.set(false));
+    }
+
+    /**
+     * Checks if the next page should be downloaded given how far the user has scrolled.
+     *
+     * @param lastVisiblePosition The adapter position of the last visible image
+     * @param itemCount           The number of images currently in the gallery
+     * @return Whether the next page should be downloaded
+     */
+    public boolean shouldLoadNextPage(int lastVisiblePosition, int itemCount) {
+        return !lastPageReached && !loading.get()
+                && lastVisiblePosition >= itemCount - 1 - prefetchDistance;
+    }
+
+    /**
+     * Gets the next page that will be downloaded.
+     *
+     * @return The next page number
+     */
+    public int getNextPage() {
+        return nextPage;
+    }
+
+    /**
+     * Check if the last page of the image list has been downloaded.
+     *
+     * @return Whether there are no more pages to download
+     */
+    public boolean isLastPageReached() {
+        return lastPageReached;
+    }
+
+    /**
+     * Check if a page is currently being downloaded.
+     *
+     * @return Whether a page is being downloaded
+     */
+    public boolean isLoading() {
+        return loading.get();
+    }
+
+    /**
+     * Advances to the next page after a successful download. A page with fewer images than
+     *  requested is the last one.
+     *
+     * @param page     The page that was downloaded
+     * @param response The server response for the page
+     */
+    private void onPageDownloaded(int page, Response<List<Picture>> response) {
+        if (!response.isSuccessful()) {
+            return;
+        }
+
+        List<Picture> pictures = response.body();
+
+        if (pictures == null || pictures.size() < pageSize) {
+            lastPageReached = true;
+        }
+
+        nextPage = page + 1;
+    }
+}
@@ -0,0 +1,89 @@
+package codes.carl.gallery.network;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * A Retrofit converter for picture list responses that parses the pictures as the response body
+ *  is read from the network, instead of binding them through Gson reflection.
+ * Any other response type is left to the next converter.
+ *
+ * @see PictureListParser
+ */
+public class PictureListConverterFactory extends Converter.Factory {
+
+    /**
+     * Holds the shared copy of each author name parsed.
+     */
+    private final AuthorDictionary authors;
+
+    /**
+     * Creates a picture list converter factory.
+     *
+     * @param authors Holds the shared copy of each author name parsed
+     * @return The converter factory
+     */
+    public static PictureListConverterFactory create(AuthorDictionary authors) {
+        return new PictureListConverterFactory(authors);
+    }
+
+    /**
+     * Constructs a picture list converter factory.
+     *
+     * @param authors Holds the shared copy of each author name parsed
+     */
+    private PictureListConverterFactory(AuthorDictionary authors) {
+        this.authors = authors;
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (!isPictureList(type)) {
+            return null;
+        }
+
+        return (Converter<ResponseBody, List<Picture>>) body -> {
+            // The char stream decodes straight from the body's buffered source
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                List<Picture> pictures = PictureListParser.parse(reader, authors);
+
+                // Like the Gson converter, a body with more after the list is not taken as the list
+                if (reader.peek() != JsonToken.END_DOCUMENT) {
+                    throw new JsonIOException("JSON document was not fully consumed.");
+                }
+
+                return pictures;
+            }
+        };
+    }
+
+    /**
+     * Checks if a response type is a list of pictures.
+     *
+     * @param type The response type
+     * @return Whether the type is List&lt;Picture&gt;
+     */
+    private static boolean isPictureList(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+
+        return parameterizedType.getRawType() == List.class
+                && parameterizedType.getActualTypeArguments()[0] == Picture.class;
+    }
+}
@@ -0,0 +1,157 @@
+package codes.carl.gallery.network;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.List;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+
+/**
+ * Reads the Lorem Picsum picture list straight from a JSON token stream, one picture at a time,
+ *  without binding through reflection or building an intermediate tree of the document.
+ *
+ * Author names are swapped for their copy in an {@link AuthorDictionary} as they are read.
+ */
+public class PictureListParser {
+
+    /**
+     * Receives pictures as soon as they are parsed.
+     */
+    public interface Listener {
+
+        /**
+         * Called for each picture in the list, in order.
+         *
+         * @param picture The parsed picture
+         */
+        void onPicture(Picture picture);
+    }
+
+    /**
+     * Receives the fields of each picture as soon as they are parsed.
+     */
+    private interface FieldsListener {
+
+        /**
+         * Called for each picture in the list, in order.
+         *
+         * @param id          The picture id
+         * @param author      The picture author
+         * @param width       The width in pixels
+         * @param height      The height in pixels
+         * @param url         The web page url
+         * @param downloadUrl The download url
+         */
+        void onPicture(String id, String author, long width, long height, String url, String downloadUrl);
+    }
+
+    /**
+     * Reads a JSON array of pictures into a list. The pictures are stored in columns as they
+     *  are parsed, without creating an object per picture.
+     *
+     * @param reader  The JSON reader positioned at the start of the array
+     * @param authors Holds the shared copy of each author name
+     * @return The parsed pictures
+     * @throws IOException If the JSON could not be read
+     * @see PictureStore
+     */
+    public static List<Picture> parse(JsonReader reader, AuthorDictionary authors) throws IOException {
+        PictureStore.Builder pictures = new PictureStore.Builder();
+        readPictures(reader, authors, pictures::add);
+
+        return pictures.build();
+    }
+
+    /**
+     * Reads a JSON array of pictures, handing each one to the listener as soon as it is parsed.
+     *
+     * @param reader   The JSON reader positioned at the start of the array
+     * @param authors  Holds the shared copy of each author name
+     * @param listener Receives the parsed pictures
+     * @throws IOException If the JSON could not be read
+     */
+    public static void parse(JsonReader reader, AuthorDictionary authors, Listener listener) throws IOException {
+        readPictures(reader, authors, (id, author, width, height, url, downloadUrl) ->
+                listener.onPicture(new Picture(id, author, width, height, url, downloadUrl)));
+    }
+
+    /**
+     * Reads a JSON array of pictures, handing the fields of each one to the listener as soon as
+     *  they are parsed.
+     *
+     * @param reader   The JSON reader positioned at the start of the array
+     * @param authors  Holds the shared copy of each author name
+     * @param listener Receives the parsed picture fields
+     * @throws IOException If the JSON could not be read
+     */
+    private static void readPictures(JsonReader reader, AuthorDictionary authors, FieldsListener listener) throws IOException {
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+            readPicture(reader, authors, listener);
+        }
+
+        reader.endArray();
+    }
+
+    /**
+     * Reads a single JSON picture object. Unknown fields are skipped.
+     *
+     * @param reader   The JSON reader positioned at the start of the object
+     * @param authors  Holds the shared copy of each author name
+     * @param listener Receives the parsed picture fields
+     * @throws IOException If the JSON could not be read
+     */
+    private static void readPicture(JsonReader reader, AuthorDictionary authors, FieldsListener listener) throws IOException {
+        String id = null;
+        String author = null;
+        long width = 0;
+        long height = 0;
+        String url = null;
+        String downloadUrl = null;
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "author":
+                    // The parsed copy is dropped for the shared one straight away
+                    author = authors.intern(reader.nextString());
+                    break;
+                case "width":
+                    width = reader.nextLong();
+                    break;
+                case "height":
+                    height = reader.nextLong();
+                    break;
+                case "url":
+                    url = reader.nextString();
+                    break;
+                case "download_url":
+                    downloadUrl = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        listener.onPicture(id, author, width, height, url, downloadUrl);
+    }
+}
@@ -0,0 +1,56 @@
+package codes.carl.gallery.network;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Logs how long each request takes to get a response, without reading or buffering the body.
+ * The time is measured up to the response headers; the body is still streamed by the caller.
+ */
+public class TimingInterceptor implements Interceptor {
+
+    /**
+     * Where the request timing is logged.
+     */
+    private final HttpLoggingInterceptor.Logger logger;
+
+    /**
+     * Constructs a timing interceptor.
+     *
+     * @param logger Where the request timing is logged
+     */
+    public TimingInterceptor(HttpLoggingInterceptor.Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        long start = System.nanoTime();
+
+        try {
+            Response response = chain.proceed(request);
+            logger.log(request.method() + " " + request.url() + " -> " + response.code() + " in " + elapsedMillis(start) + "ms");
+
+            return response;
+        } catch (IOException e) {
+            logger.log(request.method() + " " + request.url() + " failed after " + elapsedMillis(start) + "ms: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the milliseconds passed since a start time.
+     *
+     * @param start The start time from {@link System#nanoTime()}
+     * @return The elapsed milliseconds
+     */
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
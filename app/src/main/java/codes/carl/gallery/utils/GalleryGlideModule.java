@@ -1,11 +1,103 @@
 package codes.carl.gallery.utils;
 
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.Excludes;
 import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpLibraryGlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+import java.io.InputStream;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.network.Client;
 
 /**
- * Required for Glide
+ * Configures Glide for the gallery.
+ *
+ * Grid thumbnails are downloaded at about the size of their cell and decoded without an alpha
+ *  channel, at half the memory of a full quality bitmap. The memory caches are sized from the
+ *  device's memory class, and kept smaller on low memory devices.
+ *
+ * Images are downloaded with the same OkHttp connections as the API calls. The OkHttp
+ *  integration's own module is excluded, since it would build a separate client.
  */
 @GlideModule
+@Excludes(OkHttpLibraryGlideModule.class)
 public class GalleryGlideModule extends AppGlideModule {
+
+    /**
+     * The size of the image disk cache.
+     */
+    private static final long DISK_CACHE_BYTES = 100 * 1024 * 1024;
+
+    /**
+     * The size of the image disk cache on low memory devices, which usually have little storage too.
+     */
+    private static final long LOW_RAM_DISK_CACHE_BYTES = 40 * 1024 * 1024;
+
+    /**
+     * Sizes the caches and sets the default decode format.
+     *
+     * @param context The application context
+     * @param builder The builder Glide is created from
+     */
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+
+        // Bitmaps are rarely reused from the pool from Android O on, so it gets a single screen there
+        boolean smallPool = lowRam || Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+
+        // The caches are measured in screens of bitmaps, and capped at a share of the memory class
+        MemorySizeCalculator memorySize = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(lowRam ? 1 : 2)
+                .setBitmapPoolScreens(smallPool ? 1 : 2)
+                .setMaxSizeMultiplier(lowRam ? 0.25f : 0.33f)
+                .build();
+
+        builder.setMemorySizeCalculator(memorySize);
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, lowRam ? LOW_RAM_DISK_CACHE_BYTES : DISK_CACHE_BYTES));
+
+        // Pictures with transparency still decode in full, Glide only uses RGB_565 when it can
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+    }
+
+    /**
+     * Registers the loader that downloads pictures resized to their target, and downloads every
+     *  url through the network client's shared connections.
+     *
+     * @param context  The application context
+     * @param glide    The Glide singleton
+     * @param registry The registry to add loaders to
+     */
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class, new OkHttpUrlLoader.Factory(Client.getInstance().getImageClient()));
+        registry.prepend(Picture.class, InputStream.class, new PictureUrlLoader.Factory());
+    }
+
+    /**
+     * Skips looking for Glide modules declared in the manifest, since there are none.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
 }
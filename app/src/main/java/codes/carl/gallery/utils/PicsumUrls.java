@@ -0,0 +1,67 @@
+package codes.carl.gallery.utils;
+
+import codes.carl.gallery.model.Picture;
+
+/**
+ * A utilities class containing helper methods for building Lorem Picsum image urls.
+ *
+ * Lorem Picsum resizes and crops a picture on the server when it is asked for it at a size, so
+ *  the gallery downloads pictures at about the size of their grid cell instead of the original,
+ *  which can be several thousand pixels across.
+ */
+public class PicsumUrls {
+
+    /**
+     * The start of every Lorem Picsum url for a picture by id, followed by id/width/height.
+     */
+    private static final String ID_URL_PREFIX = "https://picsum.photos/id/";
+
+    /**
+     * The smallest step sizes are rounded up to, in pixels.
+     */
+    private static final int MIN_STEP = 32;
+
+    /**
+     * Gets the url of a picture resized by the server to fill an area. The area is rounded up to
+     *  a bucket size first, so cells of slightly different sizes share the same download and cache
+     *  entry, and the picture is never asked for larger than the original.
+     *
+     * @param picture The picture
+     * @param width   The width of the area in pixels
+     * @param height  The height of the area in pixels
+     * @return The url of the resized picture, or the download url if the picture can't be resized
+     *  or the area is as large as the original
+     */
+    public static String sizedUrl(Picture picture, int width, int height) {
+        String downloadUrl = picture.getDownload_url();
+
+        // Pictures from anywhere else are left alone, as is a size Glide couldn't work out
+        if (downloadUrl == null || !downloadUrl.startsWith(ID_URL_PREFIX) || picture.getId() == null
+                || width <= 0 || height <= 0) {
+            return downloadUrl;
+        }
+
+        // The original can't be made any sharper, so an area that needs all of it gets it as it is
+        if (width >= picture.getWidth() || height >= picture.getHeight()) {
+            return downloadUrl;
+        }
+
+        long bucketWidth = Math.min(bucket(width), picture.getWidth());
+        long bucketHeight = Math.min(bucket(height), picture.getHeight());
+
+        return ID_URL_PREFIX + picture.getId() + '/' + bucketWidth + '/' + bucketHeight;
+    }
+
+    /**
+     * Rounds a size up to its bucket. There are four buckets between each power of two, so above
+     *  the smallest step a bucket is never more than a quarter larger than the size asked for.
+     *
+     * @param size The size in pixels, greater than 0
+     * @return The bucket size in pixels, at least the size
+     */
+    private static long bucket(int size) {
+        long step = Math.max(MIN_STEP, Integer.highestOneBit(size) / 4);
+
+        return (size + step - 1) / step * step;
+    }
+}
@@ -0,0 +1,82 @@
+package codes.carl.gallery.utils;
+
+import java.util.List;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureKeys;
+import codes.carl.gallery.model.PictureStore;
+
+/**
+ * A utilities class containing helper methods for telling apart the pictures of two galleries.
+ *
+ * Working out what changed between two galleries compares every position, often more than
+ *  once. Galleries that implement {@link PictureKeys} are compared through their keys, so no
+ *  pictures are built for it; any other list is compared through its pictures.
+ */
+public class PictureDiff {
+
+    /**
+     * Gets the id of the picture at a position as a number.
+     *
+     * @param pictures The gallery
+     * @param index    The position of the picture
+     * @return The id, or {@link PictureKeys#NO_NUMERIC_ID} if it is not a plain number
+     */
+    public static int numericId(List<Picture> pictures, int index) {
+        if (pictures instanceof PictureKeys) {
+            return ((PictureKeys) pictures).getNumericId(index);
+        }
+
+        return PictureStore.numericId(pictures.get(index).getId());
+    }
+
+    /**
+     * Gets the fingerprint of the picture at a position.
+     *
+     * @param pictures The gallery
+     * @param index    The position of the picture
+     * @return The fingerprint
+     */
+    public static long fingerprint(List<Picture> pictures, int index) {
+        if (pictures instanceof PictureKeys) {
+            return ((PictureKeys) pictures).getFingerprint(index);
+        }
+
+        return pictures.get(index).fingerprint();
+    }
+
+    /**
+     * Check if the pictures at two positions are the same picture, which may have changed. Numeric
+     *  ids are compared as numbers, which gives the same answer as {@link Picture#sameIdentity}.
+     *
+     * @param oldPictures The previous gallery
+     * @param oldIndex    The position in the previous gallery
+     * @param newPictures The new gallery
+     * @param newIndex    The position in the new gallery
+     * @return Whether the pictures have the same identity
+     */
+    public static boolean sameItem(List<Picture> oldPictures, int oldIndex, List<Picture> newPictures, int newIndex) {
+        int oldId = numericId(oldPictures, oldIndex);
+        int newId = numericId(newPictures, newIndex);
+
+        // Numeric ids are read in only one form, so a numeric id never matches any other
+        if (oldId != PictureKeys.NO_NUMERIC_ID || newId != PictureKeys.NO_NUMERIC_ID) {
+            return oldId == newId;
+        }
+
+        return oldPictures.get(oldIndex).sameIdentity(newPictures.get(newIndex));
+    }
+
+    /**
+     * Check if the pictures at two positions have the same contents.
+     *
+     * @param oldPictures The previous gallery
+     * @param oldIndex    The position in the previous gallery
+     * @param newPictures The new gallery
+     * @param newIndex    The position in the new gallery
+     * @return Whether the pictures have the same fingerprint
+     */
+    public static boolean sameContents(List<Picture> oldPictures, int oldIndex, List<Picture> newPictures, int newIndex) {
+        return fingerprint(oldPictures, oldIndex) == fingerprint(newPictures, newIndex);
+    }
+}
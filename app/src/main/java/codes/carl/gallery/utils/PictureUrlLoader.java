@@ -0,0 +1,61 @@
+package codes.carl.gallery.utils;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.load.model.stream.BaseGlideUrlLoader;
+
+import java.io.InputStream;
+
+import codes.carl.gallery.model.Picture;
+
+/**
+ * Lets Glide load a {@link Picture} directly, downloading it at the size of the view or preload
+ *  target it is loaded into rather than at full resolution.
+ *
+ * Glide works out the target size before asking for the url, for bound views and preloads alike,
+ *  so both request the same bucketed url and share the downloaded file in the disk cache.
+ *
+ * @see PicsumUrls#sizedUrl(Picture, int, int)
+ */
+public class PictureUrlLoader extends BaseGlideUrlLoader<Picture> {
+
+    /**
+     * Constructs a picture url loader.
+     *
+     * @param urlLoader The loader that downloads the urls
+     */
+    private PictureUrlLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        super(urlLoader);
+    }
+
+    @Override
+    protected String getUrl(Picture picture, int width, int height, Options options) {
+        return PicsumUrls.sizedUrl(picture, width, height);
+    }
+
+    @Override
+    public boolean handles(@NonNull Picture picture) {
+        return picture.getDownload_url() != null;
+    }
+
+    /**
+     * Creates picture url loaders for Glide's registry.
+     */
+    public static class Factory implements ModelLoaderFactory<Picture, InputStream> {
+
+        @NonNull
+        @Override
+        public ModelLoader<Picture, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new PictureUrlLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package codes.carl.gallery.utils;
+
+/**
+ * Counts how often a gallery picture was already in memory when its cell was shown, and how many
+ *  picture loads were thrown away before they finished.
+ *
+ * A picture found in the memory cache is drawn straight away, while any other picture shows the
+ *  placeholder until it is read from disk or downloaded, so the hit rate shows how well the
+ *  preloading keeps ahead of the scrolling. Loads are thrown away when a cell scrolls off screen
+ *  or a preload falls behind it, and each one may have been downloading or decoding a picture
+ *  nobody sees.
+ *
+ * The counts are not thread safe and should be recorded from the main thread.
+ */
+public class PreloadStats {
+
+    /**
+     * The number of pictures that were in memory when shown.
+     */
+    private int hits = 0;
+
+    /**
+     * The number of pictures that had to be loaded when shown.
+     */
+    private int misses = 0;
+
+    /**
+     * The number of loads cancelled before they finished.
+     */
+    private int wasted = 0;
+
+    /**
+     * Records that a picture was shown in a cell.
+     *
+     * @param inMemory Whether the picture was already in memory
+     */
+    public void recordBind(boolean inMemory) {
+        if (inMemory) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    /**
+     * Records that a cell or preload load was cancelled before it finished.
+     */
+    public void recordWasted() {
+        wasted++;
+    }
+
+    /**
+     * Gets the number of pictures that were in memory when shown.
+     *
+     * @return The hit count
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of pictures that had to be loaded when shown.
+     *
+     * @return The miss count
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of loads cancelled before they finished.
+     *
+     * @return The wasted load count
+     */
+    public int getWasted() {
+        return wasted;
+    }
+
+    /**
+     * Gets the share of shown pictures that were already in memory.
+     *
+     * @return The hit rate between 0 and 1, or 0 if no pictures were shown
+     */
+    public float getHitRate() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (float) hits / total;
+    }
+
+    /**
+     * Starts counting again from zero.
+     */
+    public void reset() {
+        hits = 0;
+        misses = 0;
+        wasted = 0;
+    }
+
+    @Override
+    public String toString() {
+        return hits + " of " + (hits + misses) + " pictures in memory when shown, " + wasted + " loads cancelled";
+    }
+}
@@ -0,0 +1,314 @@
+package codes.carl.gallery.utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Works out which gallery positions to preload while the grid scrolls.
+ *
+ * The window of positions ahead of the screen grows with the scroll speed, so a fling looks far
+ *  enough ahead that the pictures are loaded before they come into view, and it is measured in
+ *  rows so wider grids preload more pictures. Preloads left behind when the scroll turns around
+ *  are cancelled, and only a limited number run at once so a fling doesn't queue up more
+ *  downloads than the network can finish in time.
+ *
+ * A preload window only works out positions, it doesn't load anything itself. It is not thread
+ *  safe and should be used from the main thread.
+ */
+public class PreloadWindow {
+
+    /**
+     * A scroll after a pause this long, in milliseconds, starts measuring the speed again.
+     */
+    private static final long VELOCITY_RESET_MILLIS = 100;
+
+    /**
+     * How much of each new speed measurement goes into the smoothed speed.
+     */
+    private static final float VELOCITY_SMOOTHING = 0.5f;
+
+    /**
+     * The fewest rows preloaded ahead of the screen.
+     */
+    private final int minRows;
+
+    /**
+     * The most rows preloaded ahead of the screen.
+     */
+    private final int maxRows;
+
+    /**
+     * How far ahead to preload, in seconds of scrolling at the current speed.
+     */
+    private final float leadSeconds;
+
+    /**
+     * The most preloads running at once.
+     */
+    private final int maxInFlight;
+
+    /**
+     * The positions being preloaded.
+     */
+    private final Set<Integer> inFlight = new HashSet<>();
+
+    /**
+     * The positions that finished preloading and are still near the screen.
+     */
+    private final Set<Integer> finished = new HashSet<>();
+
+    /**
+     * The smoothed scroll speed in rows per second, negative when scrolling back up.
+     */
+    private float velocity = 0;
+
+    /**
+     * The direction of the last scroll, 1 for down and -1 for up.
+     */
+    private int direction = 1;
+
+    /**
+     * When the last scroll happened, in milliseconds, or -1 before the first one.
+     */
+    private long lastScrollMillis = -1;
+
+    /**
+     * Constructs a preload window.
+     *
+     * @param minRows     The fewest rows preloaded ahead of the screen
+     * @param maxRows     The most rows preloaded ahead of the screen
+     * @param leadSeconds How far ahead to preload, in seconds of scrolling at the current speed
+     * @param maxInFlight The most preloads running at once
+     */
+    public PreloadWindow(int minRows, int maxRows, float leadSeconds, int maxInFlight) {
+        this.minRows = minRows;
+        this.maxRows = maxRows;
+        this.leadSeconds = leadSeconds;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Records a scroll of the grid.
+     *
+     * @param rows       How many rows the grid scrolled, negative when scrolling back up
+     * @param timeMillis When the scroll happened, in milliseconds from any fixed point
+     */
+    public void onScrolled(float rows, long timeMillis) {
+        if (rows != 0) {
+            direction = rows > 0 ? 1 : -1;
+        }
+
+        long elapsed = timeMillis - lastScrollMillis;
+        boolean first = lastScrollMillis < 0;
+        lastScrollMillis = timeMillis;
+
+        if (first || elapsed <= 0 || elapsed > VELOCITY_RESET_MILLIS) {
+            velocity = 0;
+            return;
+        }
+
+        float measured = rows * 1000 / elapsed;
+        velocity += (measured - velocity) * VELOCITY_SMOOTHING;
+    }
+
+    /**
+     * Records that the grid stopped scrolling. The direction is kept, so preloading carries on
+     *  the way the user was going.
+     */
+    public void onScrollStopped() {
+        velocity = 0;
+        lastScrollMillis = -1;
+    }
+
+    /**
+     * Gets the smoothed scroll speed.
+     *
+     * @return The speed in rows per second, negative when scrolling back up
+     */
+    public float getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * Gets how many rows ahead of the screen are preloaded at the current speed.
+     *
+     * @return The look ahead in rows
+     */
+    public int getLookAheadRows() {
+        int rows = (int) Math.ceil(Math.abs(velocity) * leadSeconds);
+
+        return Math.max(minRows, Math.min(maxRows, rows));
+    }
+
+    /**
+     * Works out which preloads to start and cancel for the positions on screen. The preloads to
+     *  start are counted as running until {@link #onFinished(int)} or {@link #onCancelled(int)}
+     *  is called for them, and the preloads to cancel are no longer counted.
+     *
+     * @param firstVisible The first position on screen
+     * @param lastVisible  The last position on screen
+     * @param columns      The number of columns in the grid
+     * @param itemCount    The number of positions in the grid
+     * @return The preloads to start, nearest to the screen first, and the preloads to cancel
+     */
+    public Plan plan(int firstVisible, int lastVisible, int columns, int itemCount) {
+        if (firstVisible < 0 || lastVisible < firstVisible || itemCount == 0) {
+            return Plan.EMPTY;
+        }
+
+        int span = getLookAheadRows() * Math.max(columns, 1);
+        int from = direction > 0 ? lastVisible + 1 : Math.max(firstVisible - span, 0);
+        int to = direction > 0 ? Math.min(lastVisible + span, itemCount - 1) : firstVisible - 1;
+
+        // Preloads outside the window are cancelled unless they came into view, since those
+        // are about to be needed anyway
+        int[] cancel = new int[inFlight.size()];
+        int cancelCount = 0;
+
+        for (Iterator<Integer> iterator = inFlight.iterator(); iterator.hasNext(); ) {
+            int position = iterator.next();
+
+            if ((position < from || position > to) && (position < firstVisible || position > lastVisible)) {
+                iterator.remove();
+                cancel[cancelCount++] = position;
+            }
+        }
+
+        // Finished preloads only need remembering while they are near the screen
+        for (Iterator<Integer> iterator = finished.iterator(); iterator.hasNext(); ) {
+            int position = iterator.next();
+
+            if (position < firstVisible - span || position > lastVisible + span) {
+                iterator.remove();
+            }
+        }
+
+        int[] start = new int[Math.max(Math.min(maxInFlight - inFlight.size(), to - from + 1), 0)];
+        int startCount = 0;
+
+        for (int i = 0; i <= to - from && startCount < start.length; i++) {
+            int position = direction > 0 ? from + i : to - i;
+
+            if (!inFlight.contains(position) && !finished.contains(position)) {
+                inFlight.add(position);
+                start[startCount++] = position;
+            }
+        }
+
+        return new Plan(Arrays.copyOf(start, startCount), Arrays.copyOf(cancel, cancelCount));
+    }
+
+    /**
+     * Records that a preload finished, whether it loaded or failed, so it isn't started again
+     *  while it stays near the screen.
+     *
+     * @param position The position that was preloaded
+     */
+    public void onFinished(int position) {
+        if (inFlight.remove(position)) {
+            finished.add(position);
+        }
+    }
+
+    /**
+     * Records that a preload was never started or was stopped, so it can be started again.
+     *
+     * @param position The position that was going to be preloaded
+     */
+    public void onCancelled(int position) {
+        inFlight.remove(position);
+    }
+
+    /**
+     * Check if pictures inserted at a position move any preload this window knows of. Pictures
+     *  added after every known preload, such as a page appended to the gallery, leave them all
+     *  where they are.
+     *
+     * @param positionStart The position of the first inserted picture
+     * @return Whether a running or finished preload is at or after the position
+     */
+    public boolean isMovedByInsert(int positionStart) {
+        for (int position : inFlight) {
+            if (position >= positionStart) {
+                return true;
+            }
+        }
+
+        for (int position : finished) {
+            if (position >= positionStart) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Forgets every preload, such as when the pictures in the grid change.
+     */
+    public void reset() {
+        inFlight.clear();
+        finished.clear();
+    }
+
+    /**
+     * Gets the number of preloads running.
+     *
+     * @return The running preload count
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * The preloads to start and cancel after a scroll.
+     */
+    public static class Plan {
+
+        /**
+         * A plan that changes nothing.
+         */
+        static final Plan EMPTY = new Plan(new int[0], new int[0]);
+
+        /**
+         * The positions to start preloading, nearest to the screen first.
+         */
+        private final int[] start;
+
+        /**
+         * The positions to stop preloading.
+         */
+        private final int[] cancel;
+
+        /**
+         * Constructs a preload plan.
+         *
+         * @param start  The positions to start preloading, nearest to the screen first
+         * @param cancel The positions to stop preloading
+         */
+        Plan(int[] start, int[] cancel) {
+            this.start = start;
+            this.cancel = cancel;
+        }
+
+        /**
+         * Gets the positions to start preloading.
+         *
+         * @return The positions, nearest to the screen first
+         */
+        public int[] getStart() {
+            return start;
+        }
+
+        /**
+         * Gets the positions to stop preloading.
+         *
+         * @return The positions
+         */
+        public int[] getCancel() {
+            return cancel;
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package codes.carl.gallery.utils;
 
 import java.util.List;
+import java.util.Locale;
 
 import codes.carl.gallery.model.Picture;
-import codes.carl.gallery.utils.sort.QuickSort;
-import codes.carl.gallery.utils.sort.Trie;
+import codes.carl.gallery.utils.sort.AlphaSorter;
+import codes.carl.gallery.utils.sort.CollatedSorter;
+import codes.carl.gallery.utils.sort.SizeSorter;
 
 /**
  * A utilities class containing helper methods for sorting the pictures in the gallery.
  */
 public class SortUtils {
 
+    /**
+     * Sorts pictures by author name. It keeps no state between sorts, so it is shared by all callers.
+     */
+    private static final AlphaSorter ALPHA_SORTER = new AlphaSorter();
+
+    /**
+     * Sorts pictures by size. It keeps no state between sorts, so it is shared by all callers.
+     */
+    private static final SizeSorter SIZE_SORTER = new SizeSorter();
+
     /**
      * Sorts a list of picture objects alphabetically based on the
      * English characters of the author's name.
@@ -19,21 +31,29 @@ public class SortUtils {
      * @return A sorted list of pictures based on the author names
      */
     public static List<Picture> alphaSort(List<Picture> pictures) {
-        Trie trieSort = new Trie();
-
-        for (Picture pic : pictures) {
-            trieSort.insert(pic);
-        }
+        return ALPHA_SORTER.sort(pictures);
+    }
 
-        return trieSort.flatten();
+    /**
+     * Sorts a list of picture objects alphabetically based on the author's full name, following
+     * the alphabetical rules of a locale. Unlike {@link #alphaSort(List)}, accented and non-English
+     * characters are part of the sort.
+     *
+     * @param pictures A list of pictures to sort
+     * @param locale   The locale whose alphabetical rules are followed
+     * @return A sorted list of pictures based on the author names
+     */
+    public static List<Picture> localeSort(List<Picture> pictures, Locale locale) {
+        return new CollatedSorter(locale).sort(pictures);
     }
 
     /**
      * Sorts a list of picture objects based on the size of the pictures dimensions.
+     * Safe to call from several threads at once, as long as each call sorts its own list.
      *
      * @param pictures A sorted list of pictures based on their dimensions
      */
     public static void sizeSort(List<Picture> pictures) {
-        QuickSort.run(pictures);
+        SIZE_SORTER.sort(pictures);
     }
 }
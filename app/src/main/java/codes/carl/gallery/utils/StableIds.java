@@ -0,0 +1,182 @@
+package codes.carl.gallery.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureKeys;
+
+/**
+ * Gives every row of the gallery a stable id, so its cell can follow it when it moves.
+ *
+ * Lorem Picsum ids are plain numbers and are used as they are, read from the picture keys
+ *  without building the picture. Any other id is given the next free negative number the first
+ *  time it is seen and keeps it, so two different ids never share a stable id. Pictures without
+ *  an id are told apart by their fingerprint.
+ *
+ * The same picture can be shown more than once, as when it moves from one page to the next
+ *  while the gallery is being scrolled. Every repeat is given a negative number of its own, so
+ *  no two rows ever share a stable id.
+ *
+ * Stable ids never change once made. Each new gallery gets new stable ids through
+ *  {@link #update(List)}, which keeps the ids of the pictures still shown and forgets the rest,
+ *  and can be called from any thread.
+ */
+public class StableIds {
+
+    /**
+     * The stable id RecyclerView reserves for a row without one.
+     */
+    private static final long NO_ID = -1;
+
+    /**
+     * The stable ids of the rows, by position.
+     */
+    private final long[] ids;
+
+    /**
+     * The stable ids given to each picture shown, by key: the numeric id, the other id, or the
+     *  fingerprint of a picture without an id.
+     */
+    private final Map<Object, Assigned> assigned;
+
+    /**
+     * The next stable id to give out, counting down from below {@link #NO_ID}.
+     */
+    private final long next;
+
+    /**
+     * Constructs the stable ids of an empty gallery.
+     */
+    public StableIds() {
+        this(new long[0], Collections.<Object, Assigned>emptyMap(), NO_ID - 1);
+    }
+
+    /**
+     * Constructs the stable ids of a gallery.
+     *
+     * @param ids      The stable ids of the rows, by position
+     * @param assigned The stable ids given to each picture shown, by key
+     * @param next     The next stable id to give out
+     */
+    private StableIds(long[] ids, Map<Object, Assigned> assigned, long next) {
+        this.ids = ids;
+        this.assigned = assigned;
+        this.next = next;
+    }
+
+    /**
+     * Gets the stable ids of a new gallery. Pictures that are still shown keep their stable ids,
+     *  and the ids of pictures that are no longer shown are forgotten.
+     *
+     * @param pictures The new gallery, which must not change afterwards
+     * @return The stable ids of the new gallery
+     */
+    public StableIds update(List<Picture> pictures) {
+        long[] newIds = new long[pictures.size()];
+        Map<Object, Assigned> newAssigned = new HashMap<>();
+        long newNext = next;
+
+        for (int i = 0; i < newIds.length; i++) {
+            int numericId = PictureDiff.numericId(pictures, i);
+            Object key = numericId != PictureKeys.NO_NUMERIC_ID ? Integer.valueOf(numericId) : otherKey(pictures.get(i));
+
+            Assigned current = newAssigned.get(key);
+
+            if (current == null) {
+                current = new Assigned(assigned.get(key));
+                newAssigned.put(key, current);
+            }
+
+            int repeat = current.count;
+
+            if (repeat < current.keptCount) {
+                newIds[i] = current.kept[repeat];
+            } else if (repeat == 0 && numericId != PictureKeys.NO_NUMERIC_ID) {
+                newIds[i] = numericId;
+            } else {
+                newIds[i] = newNext--;
+            }
+
+            current.add(newIds[i]);
+        }
+
+        return new StableIds(newIds, newAssigned, newNext);
+    }
+
+    /**
+     * Gets the stable id of the row at a position.
+     *
+     * @param index The position of the row
+     * @return The stable id, which is never {@link #NO_ID}
+     */
+    public long get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Gets the key of a picture whose id is not a plain number.
+     *
+     * @param picture The picture
+     * @return The id, or the fingerprint of a picture without an id
+     */
+    private static Object otherKey(Picture picture) {
+        return picture.getId() != null ? picture.getId() : Long.valueOf(picture.fingerprint());
+    }
+
+    /**
+     * The stable ids given to one picture, in the order its rows appear.
+     */
+    private static class Assigned {
+
+        /**
+         * The stable ids the picture had in the previous gallery, the first {@link #keptCount}
+         *  of which were used.
+         */
+        final long[] kept;
+
+        /**
+         * The number of rows that showed the picture in the previous gallery.
+         */
+        final int keptCount;
+
+        /**
+         * The stable ids given to the picture so far, the first {@link #count} of which are used.
+         */
+        long[] ids;
+
+        /**
+         * The number of rows showing the picture so far.
+         */
+        int count;
+
+        /**
+         * Constructs the stable ids of a picture.
+         *
+         * @param previous The stable ids of the picture in the previous gallery, or null if it
+         *                 wasn't shown
+         */
+        Assigned(Assigned previous) {
+            kept = previous != null ? previous.ids : null;
+            keptCount = previous != null ? previous.count : 0;
+            ids = new long[1];
+        }
+
+        /**
+         * Adds the stable id of the next row showing the picture.
+         *
+         * @param id The stable id
+         */
+        void add(long id) {
+            if (count == ids.length) {
+                long[] grown = new long[count * 2];
+                System.arraycopy(ids, 0, grown, 0, count);
+                ids = grown;
+            }
+
+            ids[count++] = id;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+
+/**
+ * Sorts pictures alphabetically based on the English characters of the author's name: letters
+ *  outside a-z are ignored, case is ignored, a name sorts before the longer names that start with
+ *  it, and pictures whose names have the same letters keep their order from the list.
+ *
+ * Each author name is reduced to a key of just its letters, and the pictures are radix sorted on
+ *  those keys through an index array, so no trie nodes are built. The keys are kept in an
+ *  {@link AuthorDictionary}, so a name is only reduced the first time it is seen rather than on
+ *  every sort.
+ *
+ * An alpha sorter keeps no state between sorts, so one sorter can be used from any number of
+ *  threads at once.
+ */
+public class AlphaSorter {
+
+    /**
+     * The key for pictures without an author.
+     */
+    private static final byte[] EMPTY_KEY = new byte[0];
+
+    /**
+     * Holds the sort key of each author name.
+     */
+    private final AuthorDictionary dictionary;
+
+    /**
+     * Constructs an alpha sorter with an author dictionary of its own.
+     */
+    public AlphaSorter() {
+        this(new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Constructs an alpha sorter.
+     *
+     * @param dictionary Holds the sort key of each author name
+     */
+    public AlphaSorter(AuthorDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Sorts a list of pictures by author name.
+     *
+     * @param pictures The pictures to sort
+     * @return A new list with the pictures in sorted order
+     */
+    public List<Picture> sort(List<Picture> pictures) {
+        int[] order = order(pictures);
+        List<Picture> sorted = new ArrayList<>(order.length);
+
+        for (int index : order) {
+            sorted.add(pictures.get(index));
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Works out the sorted order of a list of pictures by author name, without changing the list.
+     *
+     * @param pictures The pictures to sort
+     * @return The positions of the pictures in the list, in sorted order
+     */
+    public int[] order(List<Picture> pictures) {
+        byte[][] keys = pictures instanceof PictureStore ? keys((PictureStore) pictures) : keys(pictures);
+        int[] order = new int[keys.length];
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        MsdRadixSort.sort(keys, order);
+
+        return order;
+    }
+
+    /**
+     * Gets the sort key of each picture's author. Authors usually have many pictures, so the key
+     *  is only looked up once per distinct name and shared between their pictures.
+     *
+     * @param pictures The pictures
+     * @return The sort key for each picture, in list order
+     */
+    private byte[][] keys(List<Picture> pictures) {
+        Map<String, byte[]> authorKeys = new HashMap<>();
+        byte[][] keys = new byte[pictures.size()][];
+
+        for (int i = 0; i < keys.length; i++) {
+            String author = pictures.get(i).getAuthor();
+
+            byte[] key = authorKeys.get(author);
+            if (key == null) {
+                key = dictionary.sortKey(author);
+                authorKeys.put(author, key);
+            }
+
+            keys[i] = key;
+        }
+
+        return keys;
+    }
+
+    /**
+     * Gets the sort key of each picture's author in a store, looking up each entry of its author
+     *  table once without building any pictures.
+     *
+     * @param store The pictures
+     * @return The sort key for each picture, in store order
+     */
+    private byte[][] keys(PictureStore store) {
+        byte[][] authorKeys = new byte[store.getAuthorCount()][];
+        byte[][] keys = new byte[store.size()][];
+
+        for (int i = 0; i < keys.length; i++) {
+            int author = store.getAuthorIndex(i);
+
+            if (author < 0) {
+                keys[i] = EMPTY_KEY;
+                continue;
+            }
+
+            if (authorKeys[author] == null) {
+                authorKeys[author] = dictionary.sortKey(store.getAuthor(i));
+            }
+
+            keys[i] = authorKeys[author];
+        }
+
+        return keys;
+    }
+}
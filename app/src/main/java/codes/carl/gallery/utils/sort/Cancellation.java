@@ -0,0 +1,28 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Stops a sort part way through once the thread waiting for it is interrupted, as happens when
+ *  {@link SortPipeline} replaces a sort request that is still running.
+ *
+ * The sorts check between passes over their keys rather than on every comparison, so a check
+ *  costs next to nothing. The interrupt is left set, so the caller can still see it.
+ */
+final class Cancellation {
+
+    private Cancellation() {
+    }
+
+    /**
+     * Stops the sort if a thread has been interrupted.
+     *
+     * @param thread The thread waiting for the sort
+     * @throws CancellationException If the thread was interrupted
+     */
+    static void check(Thread thread) {
+        if (thread.isInterrupted()) {
+            throw new CancellationException("Sort cancelled");
+        }
+    }
+}
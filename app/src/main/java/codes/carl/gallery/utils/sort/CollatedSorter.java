@@ -0,0 +1,107 @@
+package codes.carl.gallery.utils.sort;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+
+/**
+ * Sorts pictures by author name following the alphabetical rules of a locale, so accented and
+ *  non-Latin names sort where a reader of that language expects them instead of being dropped.
+ *
+ * The collation key of each distinct author is worked out once per sort, as bytes that compare
+ *  in the same order as the names, and the pictures are then radix sorted on those bytes.
+ *  Pictures by the same author keep their order from the list.
+ *
+ * A collated sorter keeps no state between sorts, so one sorter can be used from any number of
+ *  threads at once.
+ */
+public class CollatedSorter {
+
+    /**
+     * The collator for the locale, only ever used through a copy since collators are not thread
+     *  safe.
+     */
+    private final Collator collator;
+
+    /**
+     * Constructs a collated sorter.
+     *
+     * @param locale The locale whose alphabetical rules are followed
+     */
+    public CollatedSorter(Locale locale) {
+        this.collator = Collator.getInstance(locale);
+    }
+
+    /**
+     * Sorts a list of pictures by author name.
+     *
+     * @param pictures The pictures to sort
+     * @return A new list with the pictures in sorted order
+     */
+    public List<Picture> sort(List<Picture> pictures) {
+        int[] order = order(pictures);
+        List<Picture> sorted = new ArrayList<>(order.length);
+
+        for (int index : order) {
+            sorted.add(pictures.get(index));
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Works out the sorted order of a list of pictures by author name, without changing the list.
+     *
+     * @param pictures The pictures to sort
+     * @return The positions of the pictures in the list, in sorted order
+     */
+    public int[] order(List<Picture> pictures) {
+        byte[][] keys = keys(pictures);
+        int[] order = new int[keys.length];
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        MsdRadixSort.sort(keys, order);
+
+        return order;
+    }
+
+    /**
+     * Gets the collation key of each picture's author. Authors usually have many pictures, so
+     *  the key is only worked out once per distinct name and shared between their pictures.
+     *
+     * @param pictures The pictures
+     * @return The collation key bytes for each picture, in list order
+     */
+    private byte[][] keys(List<Picture> pictures) {
+        Collator collator = (Collator) this.collator.clone();
+        Map<String, byte[]> authorKeys = new HashMap<>();
+        byte[][] keys = new byte[pictures.size()][];
+        PictureStore store = pictures instanceof PictureStore ? (PictureStore) pictures : null;
+
+        for (int i = 0; i < keys.length; i++) {
+            String author = store != null ? store.getAuthor(i) : pictures.get(i).getAuthor();
+            if (author == null) {
+                author = "";
+            }
+
+            byte[] key = authorKeys.get(author);
+            if (key == null) {
+                key = collator.getCollationKey(author).toByteArray();
+                authorKeys.put(author, key);
+            }
+
+            keys[i] = key;
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,310 @@
+package codes.carl.gallery.utils.sort;
+
+/**
+ * An introsort over an array of primitive sort keys, carrying an index array along with the keys.
+ *
+ * Ranges are split with quicksort using a median-of-three pivot (a median of three medians for
+ *  large ranges), small ranges are finished with insertion sort, and any range that splits
+ *  badly too many times falls back to heapsort. This keeps the worst case at O(n log n) even for
+ *  already sorted, reversed or all-equal input.
+ *
+ * Sorting primitive keys next to an index array means the sorted objects are never touched while
+ *  sorting; the index array tells the caller where each object ends up. Equal keys are ordered
+ *  by their index, so when the indexes start out as positions the sort is stable.
+ *
+ * The sort stops with a {@link java.util.concurrent.CancellationException} before any partition
+ *  once the sorting thread is interrupted, leaving the keys partly sorted.
+ */
+public class IntroSort {
+
+    /**
+     * Ranges this small or smaller are finished with insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Ranges larger than this pick their pivot from nine samples instead of three.
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    private IntroSort() {
+    }
+
+    /**
+     * Sorts the keys in ascending order, applying the same moves to the indexes. Equal keys are
+     *  ordered by their index.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys, at least as long as the keys
+     */
+    public static void sort(long[] keys, int[] indexes) {
+        sort(keys, indexes, 0, keys.length);
+    }
+
+    /**
+     * Sorts a range of the keys in ascending order, applying the same moves to the indexes.
+     *  Equal keys are ordered by their index.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys
+     * @param from    The first position to sort, inclusive
+     * @param to      The last position to sort, exclusive
+     * @throws java.util.concurrent.CancellationException If the sorting thread is interrupted
+     */
+    public static void sort(long[] keys, int[] indexes, int from, int to) {
+        if (from < 0 || to > keys.length || to > indexes.length || from > to) {
+            throw new IllegalArgumentException("Invalid sort range " + from + " to " + to);
+        }
+
+        introSort(keys, indexes, from, to, 2 * log2(to - from), Thread.currentThread());
+    }
+
+    /**
+     * Quicksorts the range until it is small enough for insertion sort, or until the depth
+     *  limit is used up and the rest is heapsorted.
+     *
+     * Only the smaller side of each split is sorted recursively, so the recursion is never more
+     *  than log2(n) deep.
+     *
+     * @param keys       The sort keys
+     * @param indexes    The indexes to move along with the keys
+     * @param from       The first position to sort, inclusive
+     * @param to         The last position to sort, exclusive
+     * @param depthLimit The number of splits left before falling back to heapsort
+     * @param thread     The sorting thread, checked for an interrupt before each partition
+     */
+    private static void introSort(long[] keys, int[] indexes, int from, int to, int depthLimit, Thread thread) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            Cancellation.check(thread);
+
+            if (depthLimit-- == 0) {
+                heapSort(keys, indexes, from, to);
+                return;
+            }
+
+            int split = partition(keys, indexes, from, to);
+
+            if (split - from < to - split) {
+                introSort(keys, indexes, from, split, depthLimit, thread);
+                from = split;
+            } else {
+                introSort(keys, indexes, split, to, depthLimit, thread);
+                to = split;
+            }
+        }
+
+        insertionSort(keys, indexes, from, to);
+    }
+
+    /**
+     * Partitions the range around a sampled pivot using Hoare's scheme. Since equal keys are
+     *  ordered by index, runs of equal keys still split evenly.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys
+     * @param from    The first position of the range, inclusive
+     * @param to      The last position of the range, exclusive
+     * @return The split point: keys before it are no greater than the keys from it onwards
+     */
+    private static int partition(long[] keys, int[] indexes, int from, int to) {
+        swap(keys, indexes, from, choosePivot(keys, indexes, from, to));
+
+        long pivotKey = keys[from];
+        int pivotIndex = indexes[from];
+        int i = from - 1;
+        int j = to;
+
+        while (true) {
+            do {
+                i++;
+            } while (less(keys[i], indexes[i], pivotKey, pivotIndex));
+
+            do {
+                j--;
+            } while (less(pivotKey, pivotIndex, keys[j], indexes[j]));
+
+            if (i >= j) {
+                return j + 1;
+            }
+
+            swap(keys, indexes, i, j);
+        }
+    }
+
+    /**
+     * Picks a pivot position: the median of the first, middle and last keys, or for large ranges
+     *  the median of the medians of three evenly spread samples of three.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes moving along with the keys
+     * @param from    The first position of the range, inclusive
+     * @param to      The last position of the range, exclusive
+     * @return The position of the pivot
+     */
+    private static int choosePivot(long[] keys, int[] indexes, int from, int to) {
+        int last = to - 1;
+        int middle = (from + last) >>> 1;
+
+        if (to - from <= NINTHER_THRESHOLD) {
+            return median(keys, indexes, from, middle, last);
+        }
+
+        int step = (to - from) / 8;
+
+        return median(keys, indexes,
+                median(keys, indexes, from, from + step, from + 2 * step),
+                median(keys, indexes, middle - step, middle, middle + step),
+                median(keys, indexes, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Finds the position holding the median of three keys.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes moving along with the keys
+     * @param a       The first position
+     * @param b       The second position
+     * @param c       The third position
+     * @return The position of the median key
+     */
+    private static int median(long[] keys, int[] indexes, int a, int b, int c) {
+        if (less(keys, indexes, a, b)) {
+            if (less(keys, indexes, b, c)) return b;
+            return less(keys, indexes, a, c) ? c : a;
+        } else {
+            if (less(keys, indexes, a, c)) return a;
+            return less(keys, indexes, b, c) ? c : b;
+        }
+    }
+
+    /**
+     * Sorts a small range by inserting each key into the sorted keys before it.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys
+     * @param from    The first position to sort, inclusive
+     * @param to      The last position to sort, exclusive
+     */
+    private static void insertionSort(long[] keys, int[] indexes, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long key = keys[i];
+            int index = indexes[i];
+            int j = i - 1;
+
+            while (j >= from && less(key, index, keys[j], indexes[j])) {
+                keys[j + 1] = keys[j];
+                indexes[j + 1] = indexes[j];
+                j--;
+            }
+
+            keys[j + 1] = key;
+            indexes[j + 1] = index;
+        }
+    }
+
+    /**
+     * Heapsorts a range, used when quicksort keeps splitting it badly.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys
+     * @param from    The first position to sort, inclusive
+     * @param to      The last position to sort, exclusive
+     */
+    private static void heapSort(long[] keys, int[] indexes, int from, int to) {
+        int size = to - from;
+
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(keys, indexes, from, i, size);
+        }
+
+        for (int end = size - 1; end > 0; end--) {
+            swap(keys, indexes, from, from + end);
+            siftDown(keys, indexes, from, 0, end);
+        }
+    }
+
+    /**
+     * Moves a key down the max-heap stored at the start of the range until its children are
+     *  no larger than it.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys
+     * @param offset  The position of the heap root in the arrays
+     * @param node    The heap node to move down
+     * @param size    The number of keys in the heap
+     */
+    private static void siftDown(long[] keys, int[] indexes, int offset, int node, int size) {
+        while (true) {
+            int child = 2 * node + 1;
+
+            if (child >= size) {
+                return;
+            }
+
+            if (child + 1 < size && less(keys, indexes, offset + child, offset + child + 1)) {
+                child++;
+            }
+
+            if (!less(keys, indexes, offset + node, offset + child)) {
+                return;
+            }
+
+            swap(keys, indexes, offset + node, offset + child);
+            node = child;
+        }
+    }
+
+    /**
+     * Compares two keys, ordering equal keys by their index.
+     *
+     * @param key        The first key
+     * @param index      The index of the first key
+     * @param otherKey   The second key
+     * @param otherIndex The index of the second key
+     * @return Whether the first key sorts before the second
+     */
+    static boolean less(long key, int index, long otherKey, int otherIndex) {
+        return key < otherKey || (key == otherKey && index < otherIndex);
+    }
+
+    /**
+     * Compares the keys at two positions, ordering equal keys by their index.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes moving along with the keys
+     * @param i       The first position
+     * @param j       The second position
+     * @return Whether the key at the first position sorts before the key at the second
+     */
+    private static boolean less(long[] keys, int[] indexes, int i, int j) {
+        return less(keys[i], indexes[i], keys[j], indexes[j]);
+    }
+
+    /**
+     * Swaps two keys along with their indexes.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys
+     * @param i       The first position
+     * @param j       The second position
+     */
+    private static void swap(long[] keys, int[] indexes, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        int index = indexes[i];
+        indexes[i] = indexes[j];
+        indexes[j] = index;
+    }
+
+    /**
+     * Gets the base 2 logarithm of a size, rounded down.
+     *
+     * @param size The size, at least 1
+     * @return The logarithm, 0 for sizes of 0 or 1
+     */
+    private static int log2(int size) {
+        return size <= 1 ? 0 : 31 - Integer.numberOfLeadingZeros(size);
+    }
+}
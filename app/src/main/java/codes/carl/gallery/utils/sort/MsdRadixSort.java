@@ -0,0 +1,194 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.Arrays;
+
+/**
+ * A most-significant-digit first radix sort over byte string keys, sorting an array of indexes
+ *  into the keys instead of the keys themselves.
+ *
+ * Keys are compared byte by byte as unsigned values, and a key that is a prefix of another
+ *  sorts first. Each range is distributed into buckets by the byte at the current depth, then
+ *  each bucket is sorted on the next byte, so every byte is looked at about once. Small ranges
+ *  are finished with insertion sort, where counting buckets would cost more than it saves.
+ *
+ * The sort is stable: indexes with equal keys keep their order from the index array. It stops
+ *  with a {@link java.util.concurrent.CancellationException} before distributing a range once
+ *  the sorting thread is interrupted, leaving the indexes partly sorted.
+ */
+public class MsdRadixSort {
+
+    /**
+     * Ranges this small or smaller are finished with insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * The number of buckets: one for keys that have run out of bytes, then one per byte value.
+     */
+    private static final int BUCKETS = 257;
+
+    private MsdRadixSort() {
+    }
+
+    /**
+     * Sorts indexes by the keys they point to, in ascending order. Equal keys keep the order
+     *  their indexes had before sorting.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes into the keys to sort
+     */
+    public static void sort(byte[][] keys, int[] indexes) {
+        sort(keys, indexes, 0, indexes.length);
+    }
+
+    /**
+     * Sorts a range of indexes by the keys they point to, in ascending order. Equal keys keep
+     *  the order their indexes had before sorting.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes into the keys to sort
+     * @param from    The first position to sort, inclusive
+     * @param to      The last position to sort, exclusive
+     * @throws java.util.concurrent.CancellationException If the sorting thread is interrupted
+     */
+    public static void sort(byte[][] keys, int[] indexes, int from, int to) {
+        if (from < 0 || to > indexes.length || from > to) {
+            throw new IllegalArgumentException("Invalid sort range " + from + " to " + to);
+        }
+
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, indexes, from, to, 0);
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        int[] scratch = new int[to - from];
+        int[] counts = new int[BUCKETS + 1];
+
+        // The ranges left to sort, with the depth of the byte to sort them on. A stack is used
+        // instead of recursive calls, since long keys would otherwise recurse once per byte.
+        int[] rangeStack = new int[3 * INSERTION_SORT_THRESHOLD];
+        int top = 0;
+
+        rangeStack[top++] = from;
+        rangeStack[top++] = to;
+        rangeStack[top++] = 0;
+
+        while (top > 0) {
+            int depth = rangeStack[--top];
+            int end = rangeStack[--top];
+            int start = rangeStack[--top];
+
+            if (end - start <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(keys, indexes, start, end, depth);
+                continue;
+            }
+
+            Cancellation.check(thread);
+            Arrays.fill(counts, 0);
+
+            for (int i = start; i < end; i++) {
+                counts[bucket(keys[indexes[i]], depth) + 1]++;
+            }
+
+            // All keys share this byte, as with long common prefixes: move on to the next one
+            // without rearranging anything
+            int shared = bucket(keys[indexes[start]], depth);
+            if (counts[shared + 1] == end - start) {
+                if (shared != 0) {
+                    rangeStack[top++] = start;
+                    rangeStack[top++] = end;
+                    rangeStack[top++] = depth + 1;
+                }
+                continue;
+            }
+
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b + 1] += counts[b];
+            }
+
+            for (int i = start; i < end; i++) {
+                int index = indexes[i];
+                scratch[counts[bucket(keys[index], depth)]++] = index;
+            }
+
+            System.arraycopy(scratch, 0, indexes, start, end - start);
+
+            // Each bucket now ends at its count. Keys that ran out of bytes are all equal, so
+            // only the byte buckets need sorting on the next byte.
+            if (top + 3 * (BUCKETS - 1) > rangeStack.length) {
+                rangeStack = Arrays.copyOf(rangeStack, Math.max(rangeStack.length * 2, top + 3 * BUCKETS));
+            }
+
+            for (int b = 1; b < BUCKETS; b++) {
+                int bucketStart = start + counts[b - 1];
+                int bucketEnd = start + counts[b];
+
+                if (bucketEnd - bucketStart > 1) {
+                    rangeStack[top++] = bucketStart;
+                    rangeStack[top++] = bucketEnd;
+                    rangeStack[top++] = depth + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the bucket of a key for the byte at a depth.
+     *
+     * @param key   The key
+     * @param depth The position of the byte in the key
+     * @return 0 if the key has no byte at the depth, otherwise the unsigned byte value plus 1
+     */
+    private static int bucket(byte[] key, int depth) {
+        return depth < key.length ? (key[depth] & 0xFF) + 1 : 0;
+    }
+
+    /**
+     * Sorts a small range by inserting each index after the indexes before it whose keys are
+     *  no greater, which keeps equal keys in order.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes into the keys to sort
+     * @param from    The first position to sort, inclusive
+     * @param to      The last position to sort, exclusive
+     * @param depth   The number of leading bytes the keys in the range are known to share
+     */
+    private static void insertionSort(byte[][] keys, int[] indexes, int from, int to, int depth) {
+        for (int i = from + 1; i < to; i++) {
+            int index = indexes[i];
+            byte[] key = keys[index];
+            int j = i - 1;
+
+            while (j >= from && compare(key, keys[indexes[j]], depth) < 0) {
+                indexes[j + 1] = indexes[j];
+                j--;
+            }
+
+            indexes[j + 1] = index;
+        }
+    }
+
+    /**
+     * Compares two keys as unsigned bytes, starting from a depth.
+     *
+     * @param key      The first key
+     * @param otherKey The second key
+     * @param depth    The position of the first byte to compare
+     * @return A negative number, zero or a positive number as the first key sorts before, the
+     *  same as or after the second
+     */
+    static int compare(byte[] key, byte[] otherKey, int depth) {
+        int length = Math.min(key.length, otherKey.length);
+
+        for (int i = depth; i < length; i++) {
+            int difference = (key[i] & 0xFF) - (otherKey[i] & 0xFF);
+
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return key.length - otherKey.length;
+    }
+}
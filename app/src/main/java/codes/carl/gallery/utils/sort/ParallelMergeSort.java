@@ -0,0 +1,196 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A fork/join merge sort over an array of primitive sort keys, carrying an index array along with
+ *  the keys like {@link IntroSort}.
+ *
+ * The range is split in halves until the pieces are small enough to introsort on one thread,
+ *  then the sorted halves are merged back together. The calling thread stops waiting with a
+ *  {@link CancellationException} as soon as it is interrupted, and the pool threads stop at
+ *  their next piece. Equal keys are ordered by their index, so
+ *  the result is exactly the same as a sequential {@link IntroSort}: stable when the indexes
+ *  start out as positions, no matter how the work was split between threads.
+ */
+public class ParallelMergeSort {
+
+    /**
+     * Pieces this small or smaller are sorted on a single thread.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    /**
+     * Holds the thread pool shared by all parallel sorts, created the first time one runs.
+     */
+    private static class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * Sorts the keys in ascending order on the shared fork/join pool, applying the same moves to
+     *  the indexes. Equal keys are ordered by their index. The calling thread waits until the
+     *  sort is done.
+     *
+     * @param keys    The sort keys
+     * @param indexes The indexes to move along with the keys, at least as long as the keys
+     * @throws CancellationException If the calling thread is interrupted
+     */
+    public static void sort(long[] keys, int[] indexes) {
+        if (indexes.length < keys.length) {
+            throw new IllegalArgumentException("Fewer indexes than keys");
+        }
+
+        if (keys.length <= SEQUENTIAL_THRESHOLD) {
+            IntroSort.sort(keys, indexes);
+            return;
+        }
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        SortTask task = new SortTask(keys, indexes, new long[keys.length], new int[keys.length], 0, keys.length, cancelled);
+
+        // Waiting with invoke or join would swallow an interrupt, so the sort couldn't be cancelled
+        PoolHolder.POOL.execute(task);
+
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Sort cancelled");
+        } catch (ExecutionException e) {
+            // The tasks only throw unchecked exceptions
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Sorts one range, splitting it in two parallel halves while it is large.
+     */
+    private static class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The sort keys.
+         */
+        private final long[] keys;
+
+        /**
+         * The indexes moving along with the keys.
+         */
+        private final int[] indexes;
+
+        /**
+         * Scratch space the halves are merged into, as long as the keys.
+         */
+        private final long[] mergedKeys;
+
+        /**
+         * Scratch space the indexes of the halves are merged into, as long as the keys.
+         */
+        private final int[] mergedIndexes;
+
+        /**
+         * The first position of the range, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The last position of the range, exclusive.
+         */
+        private final int to;
+
+        /**
+         * Set once the thread waiting for the sort is interrupted.
+         */
+        private final AtomicBoolean cancelled;
+
+        /**
+         * Constructs a task to sort a range.
+         *
+         * @param keys          The sort keys
+         * @param indexes       The indexes moving along with the keys
+         * @param mergedKeys    Scratch space for merging keys
+         * @param mergedIndexes Scratch space for merging indexes
+         * @param from          The first position of the range, inclusive
+         * @param to            The last position of the range, exclusive
+         * @param cancelled     Set once the thread waiting for the sort is interrupted
+         */
+        SortTask(long[] keys, int[] indexes, long[] mergedKeys, int[] mergedIndexes, int from, int to, AtomicBoolean cancelled) {
+            this.keys = keys;
+            this.indexes = indexes;
+            this.mergedKeys = mergedKeys;
+            this.mergedIndexes = mergedIndexes;
+            this.from = from;
+            this.to = to;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            // Nobody is waiting for the pieces of a cancelled sort
+            if (cancelled.get()) {
+                throw new CancellationException("Sort cancelled");
+            }
+
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                IntroSort.sort(keys, indexes, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(new SortTask(keys, indexes, mergedKeys, mergedIndexes, from, middle, cancelled),
+                    new SortTask(keys, indexes, mergedKeys, mergedIndexes, middle, to, cancelled));
+
+            merge(middle);
+        }
+
+        /**
+         * Merges the two sorted halves of the range.
+         *
+         * @param middle The start of the second half
+         */
+        private void merge(int middle) {
+            // Already in order, as with sorted input
+            if (!IntroSort.less(keys[middle], indexes[middle], keys[middle - 1], indexes[middle - 1])) {
+                return;
+            }
+
+            int left = from;
+            int right = middle;
+            int out = from;
+
+            while (left < middle && right < to) {
+                if (IntroSort.less(keys[right], indexes[right], keys[left], indexes[left])) {
+                    mergedKeys[out] = keys[right];
+                    mergedIndexes[out++] = indexes[right++];
+                } else {
+                    mergedKeys[out] = keys[left];
+                    mergedIndexes[out++] = indexes[left++];
+                }
+            }
+
+            // Whatever is left of the second half is already in its final place
+            int remaining = middle - left;
+            System.arraycopy(keys, left, mergedKeys, out, remaining);
+            System.arraycopy(indexes, left, mergedIndexes, out, remaining);
+
+            int merged = out + remaining - from;
+            System.arraycopy(mergedKeys, from, keys, from, merged);
+            System.arraycopy(mergedIndexes, from, indexes, from, merged);
+        }
+    }
+}
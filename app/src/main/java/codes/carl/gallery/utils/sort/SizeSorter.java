@@ -0,0 +1,87 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.List;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+
+/**
+ * Sorts pictures by their total area in pixels, from smallest to largest. Pictures with the same
+ *  area keep their order from the list, and large lists are sorted in parallel.
+ *
+ * A size sorter keeps no state between sorts: every working array belongs to a single call, so
+ *  one sorter can be used from any number of threads at once. Each call must be given its own
+ *  list though, since the list itself is rearranged in place.
+ */
+public class SizeSorter {
+
+    /**
+     * The default list size from which pictures are sorted in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    /**
+     * The list size from which pictures are sorted in parallel.
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Constructs a size sorter that sorts in parallel from the default list size.
+     */
+    public SizeSorter() {
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Constructs a size sorter.
+     *
+     * @param parallelThreshold The list size from which pictures are sorted in parallel
+     */
+    public SizeSorter(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Sorts a list of pictures in place by their area.
+     *
+     * @param pictures The pictures to sort
+     */
+    public void sort(List<Picture> pictures) {
+        int[] order = order(pictures);
+        Picture[] unsorted = pictures.toArray(new Picture[order.length]);
+
+        for (int i = 0; i < order.length; i++) {
+            pictures.set(i, unsorted[order[i]]);
+        }
+    }
+
+    /**
+     * Works out the sorted order of a list of pictures by their area, without changing the list.
+     * Lists at or above the parallel threshold are sorted on all cores, and the calling thread
+     *  waits for them, so this should not be called on the main thread for large lists.
+     *
+     * @param pictures The pictures to sort
+     * @return The positions of the pictures in the list, in sorted order
+     */
+    public int[] order(List<Picture> pictures) {
+        int size = pictures.size();
+        long[] areas = new long[size];
+        int[] order = new int[size];
+
+        // A picture store has the sizes in columns, so no pictures need to be built to read them
+        PictureStore store = pictures instanceof PictureStore ? (PictureStore) pictures : null;
+
+        for (int i = 0; i < size; i++) {
+            areas[i] = store != null ? store.getArea(i) : pictures.get(i).totalPixelsSize();
+            order[i] = i;
+        }
+
+        if (size >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1) {
+            ParallelMergeSort.sort(areas, order);
+        } else {
+            IntroSort.sort(areas, order);
+        }
+
+        return order;
+    }
+}
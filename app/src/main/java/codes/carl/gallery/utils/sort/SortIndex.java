@@ -0,0 +1,811 @@
+package codes.carl.gallery.utils.sort;
+
+import java.text.Collator;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureKeys;
+import codes.carl.gallery.model.PictureStore;
+
+/**
+ * The pictures of the gallery in the order they came from the server, along with their order
+ *  for each {@link SortType}.
+ *
+ * Each sorted order is worked out the first time it is asked for and kept, so switching back to
+ *  a sort that was already used costs nothing, and {@link SortType#NORMAL} is always the server
+ *  order. A sort index never changes: a new one is made when the pictures change, which is what
+ *  throws away the sorted orders of the old pictures.
+ *
+ * A sort index made with {@link #update(List)} reuses the orders of the index it replaces.
+ *  Pictures that are still there keep their relative order, so only the new pictures are sorted
+ *  and then merged in, and adding a page to a large gallery costs about as much as sorting the
+ *  page.
+ */
+public class SortIndex {
+
+    /**
+     * Sorts pictures by size. It keeps no state between sorts, so it is shared by all indexes.
+     */
+    private static final SizeSorter SIZE_SORTER = new SizeSorter();
+
+    /**
+     * A read only list of the pictures in server order.
+     */
+    private final List<Picture> serverOrder;
+
+    /**
+     * The locale whose alphabetical rules are followed by {@link SortType#LOCALE_ALPHA}.
+     */
+    private final Locale locale;
+
+    /**
+     * Holds the alphabetical sort key of each author name, and is handed on to the indexes that
+     *  replace this one.
+     */
+    private final AuthorDictionary authors;
+
+    /**
+     * Sorts pictures by author name, using the sort keys in {@link #authors}.
+     */
+    private final AlphaSorter alphaSorter;
+
+    /**
+     * The sorted orders already worked out, by sort type, as positions in server order.
+     */
+    private final int[][] orders;
+
+    /**
+     * The sorted lists already worked out, by sort type.
+     */
+    private final List<Picture>[] sorted;
+
+    /**
+     * The orders carried over from the indexes this one replaced, until they are moved to these
+     *  pictures by the first sort, or null.
+     */
+    private Carried carried;
+
+    /**
+     * The orders to merge from the replaced indexes, by sort type, once moved to these pictures.
+     *  An order leaves out the pictures that are new or changed, which are sorted and then merged
+     *  in. Each order is dropped once merged, and this is null once none are left.
+     */
+    private int[][] previousOrders;
+
+    /**
+     * Constructs a sort index with an author dictionary of its own.
+     *
+     * @param pictures The pictures in server order, which are copied unless they are a
+     *                 {@link PictureStore}
+     * @param locale   The locale whose alphabetical rules are followed by
+     *                 {@link SortType#LOCALE_ALPHA}
+     */
+    public SortIndex(List<Picture> pictures, Locale locale) {
+        this(pictures, locale, new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Constructs a sort index.
+     *
+     * @param pictures The pictures in server order, which are copied unless they are a
+     *                 {@link PictureStore}
+     * @param locale   The locale whose alphabetical rules are followed by
+     *                 {@link SortType#LOCALE_ALPHA}
+     * @param authors  Holds the alphabetical sort key of each author name, usually the same
+     *                 dictionary the pictures were parsed with
+     */
+    public SortIndex(List<Picture> pictures, Locale locale, AuthorDictionary authors) {
+        this(pictures, locale, authors, null);
+    }
+
+    /**
+     * Constructs a sort index.
+     *
+     * @param pictures The pictures in server order, which are copied unless they are a
+     *                 {@link PictureStore}
+     * @param locale   The locale whose alphabetical rules are followed by
+     *                 {@link SortType#LOCALE_ALPHA}
+     * @param authors  Holds the alphabetical sort key of each author name
+     * @param previous The index being replaced, whose orders are reused, or null
+     */
+    private SortIndex(List<Picture> pictures, Locale locale, AuthorDictionary authors, SortIndex previous) {
+        // A picture store never changes, and copying it would turn its columns back into objects
+        this.serverOrder = pictures instanceof PictureStore ? pictures
+                : Collections.unmodifiableList(Arrays.asList(pictures.toArray(new Picture[0])));
+        this.locale = locale;
+        this.authors = authors;
+        this.alphaSorter = new AlphaSorter(authors);
+        this.orders = new int[SortType.values().length][];
+
+        // Arrays of a generic type can only be made raw
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Picture>[] sorted = new List[SortType.values().length];
+        this.sorted = sorted;
+        this.sorted[SortType.NORMAL.ordinal()] = serverOrder;
+
+        // Only the orders and pictures are kept, not the previous index itself. Matching them up
+        // with these pictures is left to the first sort, since updates are made on the main thread.
+        this.carried = previous == null ? null : previous.carry();
+    }
+
+    /**
+     * Makes a sort index for new pictures that replace these ones, such as after a refresh or
+     *  when a page is added. Orders already worked out here are merged with the new pictures
+     *  when they are first needed, instead of sorting everything again.
+     *
+     * @param pictures The new pictures in server order, which are copied unless they are a
+     *                 {@link PictureStore}
+     * @return The sort index for the new pictures
+     */
+    public SortIndex update(List<Picture> pictures) {
+        return new SortIndex(pictures, locale, authors, this);
+    }
+
+    /**
+     * Gets the pictures in the order they came from the server.
+     *
+     * @return A read only list of the pictures
+     */
+    public List<Picture> getPictures() {
+        return serverOrder;
+    }
+
+    /**
+     * Gets the number of pictures.
+     *
+     * @return The picture count
+     */
+    public int size() {
+        return serverOrder.size();
+    }
+
+    /**
+     * Gets the pictures sorted by a sort type. The first call for each sort type sorts the
+     *  pictures, later calls return the same list straight away.
+     *
+     * The sort runs without holding the index's lock, and only the finished order is kept. If
+     *  the calling thread is interrupted part way through, the sort stops and nothing is kept, so
+     *  the next call sorts again.
+     *
+     * @param sortType The sort type
+     * @return A read only list of the pictures in sorted order
+     * @throws java.util.concurrent.CancellationException If the calling thread is interrupted
+     *  while sorting
+     */
+    public List<Picture> sorted(SortType sortType) {
+        List<Picture> list = cached(sortType);
+
+        if (list == null) {
+            list = publish(sortType, order(sortType));
+        }
+
+        return list;
+    }
+
+    /**
+     * Check if the pictures have already been sorted by a sort type.
+     *
+     * @param sortType The sort type
+     * @return Whether the sorted list is ready without sorting
+     */
+    public synchronized boolean isSorted(SortType sortType) {
+        return sorted[sortType.ordinal()] != null;
+    }
+
+    /**
+     * Gets the sorted list for a sort type if it has already been worked out.
+     *
+     * @param sortType The sort type
+     * @return The sorted list, or null if the pictures haven't been sorted that way yet
+     */
+    private synchronized List<Picture> cached(SortType sortType) {
+        return sorted[sortType.ordinal()];
+    }
+
+    /**
+     * Keeps a finished order and drops the previous order it was merged from. When another
+     *  thread finished the same sort first, its order is kept instead.
+     *
+     * @param sortType The sort type
+     * @param order    The positions of the pictures in server order, in sorted order
+     * @return The sorted list that was kept
+     */
+    private synchronized List<Picture> publish(SortType sortType, int[] order) {
+        List<Picture> list = sorted[sortType.ordinal()];
+
+        if (list == null) {
+            list = new SortedView(serverOrder, order);
+
+            orders[sortType.ordinal()] = order;
+            sorted[sortType.ordinal()] = list;
+            release(sortType);
+        }
+
+        return list;
+    }
+
+    /**
+     * Gets the orders for an index that replaces this one, without moving them to its pictures.
+     *  Orders this index could still have merged from the ones it replaced are carried along
+     *  too, so they aren't lost when the pictures change again before they are needed.
+     *
+     * @return The carried orders, or null if there are none
+     */
+    private synchronized Carried carry() {
+        int[][] carriedOrders = orders.clone();
+
+        for (int sortType = 0; previousOrders != null && sortType < carriedOrders.length; sortType++) {
+            if (carriedOrders[sortType] == null) {
+                carriedOrders[sortType] = previousOrders[sortType];
+            }
+        }
+
+        return isEmpty(carriedOrders) && carried == null ? null : new Carried(serverOrder, carriedOrders, carried);
+    }
+
+    /**
+     * Works out the sorted order of the pictures, by merging with the order of the replaced
+     *  indexes when they had one.
+     *
+     * @param sortType The sort type
+     * @return The positions of the pictures in server order, in sorted order
+     */
+    private int[] order(SortType sortType) {
+        int[] kept = keptOrder(sortType);
+
+        return kept != null ? mergedOrder(sortType, kept) : fullOrder(sortType, serverOrder);
+    }
+
+    /**
+     * Gets the order of the pictures still here from the replaced indexes. The carried orders
+     *  are moved to these pictures the first time, which matches every picture up with the
+     *  replaced galleries, so it happens on the sorting thread rather than when the index is
+     *  made.
+     *
+     * @param sortType The sort type
+     * @return The positions of the pictures still here, in sorted order, or null if there is no
+     *  order to merge
+     */
+    private int[] keptOrder(SortType sortType) {
+        Carried pending;
+
+        synchronized (this) {
+            pending = carried;
+
+            if (pending == null) {
+                return previousOrders == null ? null : previousOrders[sortType.ordinal()];
+            }
+        }
+
+        int[][] moved = pending.moveTo(serverOrder);
+
+        synchronized (this) {
+            // Another thread may have moved the same orders first
+            if (carried == pending) {
+                carried = null;
+                previousOrders = isEmpty(moved) ? null : moved;
+            }
+
+            return previousOrders == null ? null : previousOrders[sortType.ordinal()];
+        }
+    }
+
+    /**
+     * Drops the previous order of a sort type once it has been used, along with the rest once
+     *  no previous orders are left. Called while holding the lock.
+     *
+     * @param sortType The sort type
+     */
+    private void release(SortType sortType) {
+        if (previousOrders == null) {
+            return;
+        }
+
+        previousOrders[sortType.ordinal()] = null;
+
+        if (isEmpty(previousOrders)) {
+            previousOrders = null;
+        }
+    }
+
+    /**
+     * Check if none of the orders by sort type are known.
+     *
+     * @param orders The orders by sort type
+     * @return Whether every order is null
+     */
+    private static boolean isEmpty(int[][] orders) {
+        for (int[] order : orders) {
+            if (order != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sorts a list of pictures from scratch.
+     *
+     * @param sortType The sort type
+     * @param list     The pictures to sort
+     * @return The positions of the pictures in the list, in sorted order
+     */
+    private int[] fullOrder(SortType sortType, List<Picture> list) {
+        switch (sortType) {
+            case ALPHA:
+                return alphaSorter.order(list);
+            case LOCALE_ALPHA:
+                return new CollatedSorter(locale).order(list);
+            case SIZE:
+                return SIZE_SORTER.order(list);
+            default:
+                throw new IllegalArgumentException("Unknown sort type " + sortType);
+        }
+    }
+
+    /**
+     * Works out the sorted order by sorting only the pictures that are new since the replaced
+     *  indexes, or were left out of their order, and merging them into the order of the rest.
+     *
+     * @param sortType The sort type
+     * @param kept     The positions of the pictures still here, in sorted order
+     * @return The positions of the pictures in server order, in sorted order
+     */
+    private int[] mergedOrder(SortType sortType, int[] kept) {
+        int keptCount = kept.length;
+        boolean[] isKept = new boolean[serverOrder.size()];
+
+        for (int position : kept) {
+            isKept[position] = true;
+        }
+
+        // Everything else is sorted, in server order so equal keys keep their server order
+        int[] unsorted = new int[serverOrder.size() - keptCount];
+        int unsortedCount = 0;
+
+        for (int position = 0; position < isKept.length; position++) {
+            if (!isKept[position]) {
+                unsorted[unsortedCount++] = position;
+            }
+        }
+
+        int[] added = new int[unsorted.length];
+        int[] addedOrder = fullOrder(sortType, new SortedView(serverOrder, unsorted));
+
+        for (int i = 0; i < added.length; i++) {
+            added[i] = unsorted[addedOrder[i]];
+        }
+
+        // Insert each new picture after the kept pictures that sort before it. Finding the spot
+        // with a binary search only compares keys a logarithmic number of times per new picture.
+        Comparison comparison = new Comparison(sortType, locale, authors, serverOrder);
+        int[] merged = new int[serverOrder.size()];
+        int out = 0;
+        int next = 0;
+
+        for (int position : added) {
+            int low = next;
+            int high = keptCount;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+
+                if (comparison.before(kept[middle], position)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            System.arraycopy(kept, next, merged, out, low - next);
+            out += low - next;
+            next = low;
+
+            merged[out++] = position;
+        }
+
+        System.arraycopy(kept, next, merged, out, keptCount - next);
+
+        return merged;
+    }
+
+    /**
+     * The orders carried over from a replaced index, as positions in its pictures, along with
+     *  the orders it carried over itself. Once moved to the pictures of the index they were
+     *  carried to, none of this is needed any more.
+     */
+    private static class Carried {
+
+        /**
+         * The pictures of the replaced index in server order.
+         */
+        final List<Picture> pictures;
+
+        /**
+         * The orders by sort type as positions in the pictures, null for those not known. An
+         *  order may leave some of the pictures out.
+         */
+        final int[][] orders;
+
+        /**
+         * The orders carried over to the replaced index that it never moved, or null.
+         */
+        final Carried earlier;
+
+        /**
+         * Constructs carried orders.
+         *
+         * @param pictures The pictures of the replaced index in server order
+         * @param orders   The orders by sort type as positions in the pictures
+         * @param earlier  The orders carried over to the replaced index that it never moved, or null
+         */
+        Carried(List<Picture> pictures, int[][] orders, Carried earlier) {
+            this.pictures = pictures;
+            this.orders = orders;
+            this.earlier = earlier;
+        }
+
+        /**
+         * Moves the orders to newer pictures. The oldest orders are moved first, through every
+         *  gallery that came after them, and an order of a newer gallery replaces an older order
+         *  of the same sort type.
+         *
+         * @param current The pictures the orders were carried to
+         * @return The orders by sort type as positions in the current pictures, leaving out the
+         *  pictures no longer there, null for those not known
+         */
+        int[][] moveTo(List<Picture> current) {
+            List<Carried> chain = new ArrayList<>();
+
+            for (Carried carried = this; carried != null; carried = carried.earlier) {
+                chain.add(carried);
+            }
+
+            int[][] moved = new int[orders.length][];
+
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                Carried carried = chain.get(i);
+                List<Picture> next = i == 0 ? current : chain.get(i - 1).pictures;
+
+                for (int sortType = 0; sortType < moved.length; sortType++) {
+                    if (carried.orders[sortType] != null) {
+                        moved[sortType] = carried.orders[sortType];
+                    }
+                }
+
+                Delta delta = isEmpty(moved) ? Delta.UNUSABLE : Delta.between(carried.pictures, next);
+
+                for (int sortType = 0; sortType < moved.length; sortType++) {
+                    moved[sortType] = delta == Delta.UNUSABLE || moved[sortType] == null ? null
+                            : delta.keptOrder(moved[sortType]);
+                }
+            }
+
+            return moved;
+        }
+    }
+
+    /**
+     * Where the pictures of a replaced index are after an update.
+     */
+    private static class Delta {
+
+        /**
+         * Marks a delta that can't be used for merging.
+         */
+        static final Delta UNUSABLE = new Delta(new int[0]);
+
+        /**
+         * The new position of each previous picture, or -1 if it is no longer there.
+         */
+        final int[] positions;
+
+        /**
+         * Constructs a delta.
+         *
+         * @param positions The new position of each previous picture, or -1 if it is no longer there
+         */
+        Delta(int[] positions) {
+            this.positions = positions;
+        }
+
+        /**
+         * Moves an order of the previous pictures to their new positions, leaving out the
+         *  pictures that are no longer there.
+         *
+         * @param previousOrder Positions of previous pictures, in sorted order
+         * @return The new positions of the pictures still here, in the same order
+         */
+        int[] keptOrder(int[] previousOrder) {
+            int[] kept = new int[previousOrder.length];
+            int keptCount = 0;
+
+            for (int previousPosition : previousOrder) {
+                int position = positions[previousPosition];
+
+                if (position >= 0) {
+                    kept[keptCount++] = position;
+                }
+            }
+
+            return keptCount == kept.length ? kept : Arrays.copyOf(kept, keptCount);
+        }
+
+        /**
+         * Works out the delta between two galleries. Pictures are matched by
+         *  {@link Picture#sameIdentity}, and a picture whose author or size changed counts as
+         *  removed and added again since it may sort differently.
+         *
+         * @param previous The previous pictures in server order
+         * @param current  The current pictures in server order
+         * @return The delta, or {@link #UNUSABLE} if the matched pictures are not in the same
+         *  relative order, since equal keys are ordered by server position
+         */
+        static Delta between(List<Picture> previous, List<Picture> current) {
+            int[] positions = new int[previous.size()];
+
+            // A page added at the end is by far the most common update, and needs no lookups
+            if (startsWith(current, previous)) {
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = i;
+                }
+
+                return new Delta(positions);
+            }
+
+            Picture[] previousPictures = new Picture[positions.length];
+            Map<String, Integer> previousById = new HashMap<>(positions.length * 2);
+            for (int i = 0; i < positions.length; i++) {
+                Picture picture = previous.get(i);
+                positions[i] = -1;
+                previousPictures[i] = picture;
+
+                if (picture.getId() != null && previousById.put(picture.getId(), i) != null) {
+                    return UNUSABLE;
+                }
+            }
+
+            int lastMatched = -1;
+
+            for (int i = 0; i < current.size(); i++) {
+                Picture picture = current.get(i);
+                Integer match = picture.getId() == null ? null : previousById.remove(picture.getId());
+
+                // Anything not matched is sorted as a new picture
+                if (match == null || !previousPictures[match].sameIdentity(picture)
+                        || !sameSortKeys(previousPictures[match], picture)) {
+                    continue;
+                }
+
+                if (match < lastMatched) {
+                    return UNUSABLE;
+                }
+
+                positions[match] = i;
+                lastMatched = match;
+            }
+
+            return new Delta(positions);
+        }
+
+        /**
+         * Check if a gallery starts with the exact same pictures as another.
+         *
+         * @param pictures The gallery
+         * @param prefix   The pictures it may start with
+         * @return Whether the gallery starts with the prefix
+         */
+        private static boolean startsWith(List<Picture> pictures, List<Picture> prefix) {
+            if (pictures instanceof PictureStore && prefix instanceof PictureStore) {
+                return ((PictureStore) pictures).startsWith((PictureStore) prefix);
+            }
+
+            if (pictures.size() < prefix.size() || pictures instanceof PictureStore || prefix instanceof PictureStore) {
+                return false;
+            }
+
+            for (int i = 0; i < prefix.size(); i++) {
+                if (pictures.get(i) != prefix.get(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Check if two pictures sort the same way by every sort type.
+         *
+         * @param a The first picture
+         * @param b The second picture
+         * @return Whether the author and size are the same
+         */
+        private static boolean sameSortKeys(Picture a, Picture b) {
+            return a == b || (Objects.equals(a.getAuthor(), b.getAuthor())
+                    && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight());
+        }
+    }
+
+    /**
+     * Compares two pictures the same way the sorters order them. The keys of pictures in a
+     *  {@link PictureStore} are read from its columns without building the pictures.
+     */
+    private static class Comparison {
+
+        /**
+         * Holds the alphabetical sort key of each author name.
+         */
+        private final AuthorDictionary authors;
+
+        /**
+         * The sort type.
+         */
+        private final SortType sortType;
+
+        /**
+         * The collator for {@link SortType#LOCALE_ALPHA}, only used by this comparison.
+         */
+        private final Collator collator;
+
+        /**
+         * The pictures in server order.
+         */
+        private final List<Picture> pictures;
+
+        /**
+         * The same pictures if they are a picture store, or null.
+         */
+        private final PictureStore store;
+
+        /**
+         * Constructs a comparison.
+         *
+         * @param sortType The sort type
+         * @param locale   The locale whose alphabetical rules are followed by
+         *                 {@link SortType#LOCALE_ALPHA}
+         * @param authors  Holds the alphabetical sort key of each author name
+         * @param pictures The pictures in server order
+         */
+        Comparison(SortType sortType, Locale locale, AuthorDictionary authors, List<Picture> pictures) {
+            this.sortType = sortType;
+            this.authors = authors;
+            this.collator = sortType == SortType.LOCALE_ALPHA ? Collator.getInstance(locale) : null;
+            this.pictures = pictures;
+            this.store = pictures instanceof PictureStore ? (PictureStore) pictures : null;
+        }
+
+        /**
+         * Check if the picture at one position sorts before the picture at another. Equal keys
+         *  are ordered by position, as the sorters keep pictures with equal keys in list order.
+         *
+         * @param i The first position
+         * @param j The second position
+         * @return Whether the first picture sorts before the second
+         */
+        boolean before(int i, int j) {
+            int comparison = compare(i, j);
+
+            return comparison < 0 || (comparison == 0 && i < j);
+        }
+
+        /**
+         * Compares the sort keys of the pictures at two positions.
+         *
+         * @param i The first position
+         * @param j The second position
+         * @return A negative number, zero or a positive number as the first picture sorts before,
+         *  the same as or after the second
+         */
+        private int compare(int i, int j) {
+            switch (sortType) {
+                case ALPHA:
+                    return MsdRadixSort.compare(authors.sortKey(author(i)), authors.sortKey(author(j)), 0);
+                case LOCALE_ALPHA:
+                    return collator.compare(collatedAuthor(i), collatedAuthor(j));
+                case SIZE:
+                    return Long.compare(area(i), area(j));
+                default:
+                    throw new IllegalArgumentException("Unknown sort type " + sortType);
+            }
+        }
+
+        /**
+         * Gets the author of the picture at a position.
+         *
+         * @param index The position
+         * @return The author name, may be null
+         */
+        private String author(int index) {
+            return store != null ? store.getAuthor(index) : pictures.get(index).getAuthor();
+        }
+
+        /**
+         * Gets the author of the picture at a position the way {@link CollatedSorter} sees it.
+         *
+         * @param index The position
+         * @return The author name, empty if there is none
+         */
+        private String collatedAuthor(int index) {
+            String author = author(index);
+            return author == null ? "" : author;
+        }
+
+        /**
+         * Gets the total pixel area of the picture at a position.
+         *
+         * @param index The position
+         * @return The area in pixels
+         */
+        private long area(int index) {
+            return store != null ? store.getArea(index) : pictures.get(index).totalPixelsSize();
+        }
+    }
+
+    /**
+     * A read only list of the pictures in a sorted order, reading through the permutation
+     *  instead of copying the pictures. The keys of pictures in a {@link PictureStore} are read
+     *  from its columns without building the pictures.
+     */
+    private static class SortedView extends AbstractList<Picture> implements RandomAccess, PictureKeys {
+
+        /**
+         * The pictures in server order.
+         */
+        private final List<Picture> pictures;
+
+        /**
+         * The positions of the pictures in server order, in sorted order.
+         */
+        private final int[] order;
+
+        /**
+         * Constructs a sorted view.
+         *
+         * @param pictures The pictures in server order
+         * @param order    The positions of the pictures in server order, in sorted order
+         */
+        SortedView(List<Picture> pictures, int[] order) {
+            this.pictures = pictures;
+            this.order = order;
+        }
+
+        @Override
+        public Picture get(int index) {
+            return pictures.get(order[index]);
+        }
+
+        @Override
+        public int size() {
+            return order.length;
+        }
+
+        @Override
+        public int getNumericId(int index) {
+            if (pictures instanceof PictureKeys) {
+                return ((PictureKeys) pictures).getNumericId(order[index]);
+            }
+
+            return PictureStore.numericId(get(index).getId());
+        }
+
+        @Override
+        public long getFingerprint(int index) {
+            if (pictures instanceof PictureKeys) {
+                return ((PictureKeys) pictures).getFingerprint(order[index]);
+            }
+
+            return get(index).fingerprint();
+        }
+    }
+}
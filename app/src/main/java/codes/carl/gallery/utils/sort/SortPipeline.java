@@ -0,0 +1,244 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import codes.carl.gallery.model.Picture;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Sorts the gallery pictures away from the calling thread and publishes the sorted pictures.
+ *
+ * Only the latest sort request matters: a request made while an earlier one is still sorting
+ *  replaces it. The earlier sort is interrupted, stops at its next check and keeps nothing, so
+ *  its result is never published. Orders the {@link SortIndex} has already worked out are
+ *  published straight away without changing threads.
+ */
+public class SortPipeline {
+
+    /**
+     * The scheduler the pictures are sorted on.
+     */
+    private final Scheduler sortScheduler;
+
+    /**
+     * The sort requests, in the order they were made.
+     */
+    private final PublishSubject<Request> requests = PublishSubject.create();
+
+    /**
+     * How long the last completed sort took, in nanoseconds.
+     */
+    private volatile long lastSortNanos = 0;
+
+    /**
+     * The number of sorts completed, not counting orders that were already worked out.
+     */
+    private final AtomicInteger sortCount = new AtomicInteger();
+
+    /**
+     * Constructs a sort pipeline.
+     *
+     * @param sortScheduler The scheduler to sort the pictures on, such as
+     *                      {@link io.reactivex.schedulers.Schedulers#computation()}
+     */
+    public SortPipeline(Scheduler sortScheduler) {
+        this.sortScheduler = sortScheduler;
+    }
+
+    /**
+     * Requests the pictures of a sort index in a sorted order. Should be called from one thread
+     *  at a time, usually the main thread.
+     *
+     * @param sortIndex The pictures to sort
+     * @param sortType  How to sort them
+     */
+    public void sort(SortIndex sortIndex, SortType sortType) {
+        requests.onNext(new Request(sortIndex, sortType));
+    }
+
+    /**
+     * Gets the sorted pictures for the requests made while subscribed. Results are published on
+     *  the sort scheduler, or on the requesting thread for orders that were already worked out.
+     *
+     * @return An observable emitting a result for each request that was not replaced by a newer one
+     */
+    public Observable<Result> results() {
+        return requests.switchMap(this::sortRequest);
+    }
+
+    /**
+     * Gets how long the last completed sort took, not counting orders that were already worked out.
+     *
+     * @return The duration of the last sort in milliseconds
+     */
+    public long getLastSortMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastSortNanos);
+    }
+
+    /**
+     * Gets the number of sorts completed, not counting orders that were already worked out.
+     *
+     * @return The sort count
+     */
+    public int getSortCount() {
+        return sortCount.get();
+    }
+
+    /**
+     * Sorts the pictures for a request.
+     *
+     * @param request The request
+     * @return An observable emitting the result once sorted
+     */
+    private Observable<Result> sortRequest(Request request) {
+        if (request.sortIndex.isSorted(request.sortType)) {
+            return Observable.just(new Result(request, request.sortIndex.sorted(request.sortType), 0, true));
+        }
+
+        // Disposing the request interrupts the sorting thread, which stops the sort part way
+        return Observable.<Result>create(emitter -> {
+            long start = System.nanoTime();
+            List<Picture> pictures;
+
+            try {
+                pictures = request.sortIndex.sorted(request.sortType);
+            } catch (CancellationException e) {
+                // Nobody is waiting for a replaced request, so it ends without a result
+                emitter.onComplete();
+                return;
+            }
+
+            long duration = System.nanoTime() - start;
+
+            lastSortNanos = duration;
+            sortCount.incrementAndGet();
+
+            emitter.onNext(new Result(request, pictures, duration, false));
+            emitter.onComplete();
+        }).subscribeOn(sortScheduler);
+    }
+
+    /**
+     * A request to sort pictures.
+     */
+    private static class Request {
+
+        /**
+         * The pictures to sort.
+         */
+        final SortIndex sortIndex;
+
+        /**
+         * How to sort them.
+         */
+        final SortType sortType;
+
+        /**
+         * Constructs a sort request.
+         *
+         * @param sortIndex The pictures to sort
+         * @param sortType  How to sort them
+         */
+        Request(SortIndex sortIndex, SortType sortType) {
+            this.sortIndex = sortIndex;
+            this.sortType = sortType;
+        }
+    }
+
+    /**
+     * The sorted pictures for a request.
+     */
+    public static class Result {
+
+        /**
+         * The pictures that were sorted.
+         */
+        private final SortIndex sortIndex;
+
+        /**
+         * How they were sorted.
+         */
+        private final SortType sortType;
+
+        /**
+         * The pictures in sorted order.
+         */
+        private final List<Picture> pictures;
+
+        /**
+         * How long the sort took, in nanoseconds.
+         */
+        private final long durationNanos;
+
+        /**
+         * Whether the order had already been worked out.
+         */
+        private final boolean cached;
+
+        /**
+         * Constructs a sort result.
+         *
+         * @param request       The request that was sorted
+         * @param pictures      The pictures in sorted order
+         * @param durationNanos How long the sort took, in nanoseconds
+         * @param cached        Whether the order had already been worked out
+         */
+        Result(Request request, List<Picture> pictures, long durationNanos, boolean cached) {
+            this.sortIndex = request.sortIndex;
+            this.sortType = request.sortType;
+            this.pictures = pictures;
+            this.durationNanos = durationNanos;
+            this.cached = cached;
+        }
+
+        /**
+         * Gets the sort index the pictures came from.
+         *
+         * @return The sort index
+         */
+        public SortIndex getSortIndex() {
+            return sortIndex;
+        }
+
+        /**
+         * Gets how the pictures were sorted.
+         *
+         * @return The sort type
+         */
+        public SortType getSortType() {
+            return sortType;
+        }
+
+        /**
+         * Gets the pictures in sorted order.
+         *
+         * @return A read only list of the pictures
+         */
+        public List<Picture> getPictures() {
+            return pictures;
+        }
+
+        /**
+         * Gets how long the sort took.
+         *
+         * @return The duration in milliseconds, 0 if the order had already been worked out
+         */
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+
+        /**
+         * Check if the order had already been worked out before it was requested.
+         *
+         * @return Whether the pictures were sorted before the request
+         */
+        public boolean isCached() {
+            return cached;
+        }
+    }
+}
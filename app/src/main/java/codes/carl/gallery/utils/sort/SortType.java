@@ -4,5 +4,5 @@ package codes.carl.gallery.utils.sort;
  * The sort options for the gallery.
  */
 public enum SortType {
-    NORMAL, ALPHA, SIZE;
+    NORMAL, ALPHA, LOCALE_ALPHA, SIZE;
 }
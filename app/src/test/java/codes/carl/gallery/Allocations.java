@@ -0,0 +1,44 @@
+package codes.carl.gallery;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the heap allocated by the test thread, for tests that check code doesn't churn the heap.
+ */
+final class Allocations {
+
+    /**
+     * The bytes a measurement may allocate by itself.
+     */
+    private static final long SLACK = 1024;
+
+    private Allocations() {
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return The allocated byte count
+     */
+    static long currentThreadBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Asserts that some work allocates nothing, allowing a little slack for the measurement
+     *  itself. The work should already have been run to warm up, so class loading and
+     *  compilation aren't counted.
+     *
+     * @param work The work to measure
+     */
+    static void assertAllocatesNothing(Runnable work) {
+        long before = currentThreadBytes();
+        work.run();
+        long allocated = currentThreadBytes() - before;
+
+        assertTrue("Allocated " + allocated + " bytes", allocated < SLACK);
+    }
+}
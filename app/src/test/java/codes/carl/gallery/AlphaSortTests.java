@@ -4,9 +4,13 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
 
 import codes.carl.gallery.model.Picture;
 import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.utils.sort.CompactTrie;
+import codes.carl.gallery.utils.sort.Trie;
 
 import static org.junit.Assert.*;
 
@@ -85,4 +89,122 @@ public class AlphaSortTests {
 
         assertEquals(sortedCheck, sortedPics);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the compact trie sorts exactly like the original trie, including the order of
+     *  pictures with the same name and names that are prefixes of other names.
+     */
+    @Test
+    public void compactMatchesTrie() {
+        List<Picture> pics = randomPictures();
+
+        CompactTrie compactTrie = new CompactTrie();
+        for (Picture pic : pics) {
+            compactTrie.insert(pic);
+        }
+
+        assertSameOrder(trieSort(pics), compactTrie.flatten());
+    }
+
+    /**
+     * Tests that the radix sort behind the Alphabetical sort method sorts exactly like the
+     *  original trie, including the order of pictures with the same name and names that are
+     *  prefixes of other names.
+     */
+    @Test
+    public void radixMatchesTrie() {
+        List<Picture> pics = randomPictures();
+
+        assertSameOrder(trieSort(pics), SortUtils.alphaSort(pics));
+    }
+
+    /**
+     * Tests that the radix sort stops once the sorting thread is interrupted.
+     */
+    @Test
+    public void interruptedSortStops() {
+        List<Picture> pics = randomPictures();
+
+        Thread.currentThread().interrupt();
+
+        try {
+            SortUtils.alphaSort(pics);
+            fail("Sort finished");
+        } catch (CancellationException e) {
+            // Expected
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        assertSameOrder(trieSort(pics), SortUtils.alphaSort(pics));
+    }
+
+    /**
+     * Tests that nodes are only created for letters that are used, and shared between names with
+     *  the same prefix.
+     */
+    @Test
+    public void compactSharesPrefixes() {
+        CompactTrie trie = new CompactTrie();
+        trie.insert(new Picture("Carl"));
+        trie.insert(new Picture("Carla"));
+        trie.insert(new Picture("Cat"));
+
+        // root, c, a, r, l, a (carla), t (cat)
+        assertEquals(7, trie.getNodeCount());
+    }
+
+    /**
+     * Generates pictures with short random names mixing letters in both cases, spaces,
+     *  punctuation and non-English letters, so that many names collide or are prefixes of others.
+     *
+     * @return The pictures
+     */
+    private static List<Picture> randomPictures() {
+        Random random = new Random(42);
+        String alphabet = "abcdeABCDE д_'-";
+        List<Picture> pics = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = random.nextInt(8);
+
+            for (int c = 0; c < length; c++) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            pics.add(new Picture(name.toString()));
+        }
+
+        return pics;
+    }
+
+    /**
+     * Sorts pictures with the original trie.
+     *
+     * @param pics The pictures to sort
+     * @return The sorted pictures
+     */
+    private static List<Picture> trieSort(List<Picture> pics) {
+        Trie trie = new Trie();
+        for (Picture pic : pics) {
+            trie.insert(pic);
+        }
+
+        return trie.flatten();
+    }
+
+    /**
+     * Asserts that two lists hold the same picture objects in the same order.
+     *
+     * @param expected The expected pictures
+     * @param actual   The actual pictures
+     */
+    private static void assertSameOrder(List<Picture> expected, List<Picture> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame("Position " + i, expected.get(i), actual.get(i));
+        }
+    }
+}
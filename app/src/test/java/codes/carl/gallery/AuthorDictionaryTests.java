@@ -0,0 +1,130 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.sort.SortIndex;
+import codes.carl.gallery.utils.sort.SortType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the shared author names and their sort keys.
+ *
+ * @see codes.carl.gallery.model.AuthorDictionary
+ */
+public class AuthorDictionaryTests {
+
+    /**
+     * Tests that equal names are swapped for the first copy seen.
+     */
+    @Test
+    public void interned() {
+        AuthorDictionary dictionary = new AuthorDictionary(16);
+        String first = new String("Paul Jarvis");
+        String second = new String("Paul Jarvis");
+
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+        assertNull(dictionary.intern(null));
+        assertEquals(1, dictionary.size());
+    }
+
+    /**
+     * Tests that the sort key is worked out once per name and matches the key built on its own.
+     */
+    @Test
+    public void sortKeyCached() {
+        AuthorDictionary dictionary = new AuthorDictionary(16);
+        byte[] key = dictionary.sortKey(new String("Élodie O'Brien"));
+
+        assertArrayEquals(AuthorDictionary.key("Élodie O'Brien"), key);
+        assertSame(key, dictionary.sortKey(new String("Élodie O'Brien")));
+        assertEquals(0, dictionary.sortKey(null).length);
+    }
+
+    /**
+     * Tests that a sort index keeps its sort keys in the dictionary it was given, and hands it
+     *  on when updated.
+     */
+    @Test
+    public void givenToSortIndex() {
+        AuthorDictionary dictionary = new AuthorDictionary(16);
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture("1", "Paul", 1, 1, "", ""));
+        pics.add(new Picture("2", "Carl", 1, 1, "", ""));
+
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH, dictionary);
+        index.sorted(SortType.ALPHA);
+        assertEquals(2, dictionary.size());
+
+        List<Picture> combined = new ArrayList<>(pics);
+        combined.add(new Picture("3", "Zoom", 1, 1, "", ""));
+        index.update(combined).sorted(SortType.ALPHA);
+        assertEquals(3, dictionary.size());
+    }
+
+    /**
+     * Tests that names past the capacity are handed back unchanged and still get a sort key.
+     */
+    @Test
+    public void capacity() {
+        AuthorDictionary dictionary = new AuthorDictionary(2);
+        dictionary.intern("Paul");
+        dictionary.intern("Carl");
+
+        String zoom = new String("Zoom");
+
+        assertSame(zoom, dictionary.intern(zoom));
+        assertArrayEquals(AuthorDictionary.key("Zoom"), dictionary.sortKey("Zoom"));
+        assertEquals(2, dictionary.size());
+    }
+
+    /**
+     * Tests that threads interning the same names at once all get the same copy.
+     */
+    @Test
+    public void concurrentIntern() throws Exception {
+        final AuthorDictionary dictionary = new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String[]>> results = new ArrayList<>();
+
+        for (int thread = 0; thread < 4; thread++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                String[] names = new String[100];
+
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = dictionary.intern(new String("Author " + i));
+                }
+
+                return names;
+            }));
+        }
+
+        start.countDown();
+        String[] expected = results.get(0).get(10, TimeUnit.SECONDS);
+
+        for (Future<String[]> result : results) {
+            String[] names = result.get(10, TimeUnit.SECONDS);
+
+            for (int i = 0; i < names.length; i++) {
+                assertSame(expected[i], names[i]);
+            }
+        }
+
+        executor.shutdown();
+        assertEquals(100, dictionary.size());
+    }
+}
@@ -0,0 +1,194 @@
+package codes.carl.gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.network.Client;
+import codes.carl.gallery.network.TimingInterceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the network client setup.
+ *
+ * @see codes.carl.gallery.network.Client
+ */
+public class ClientTests {
+
+    /**
+     * A local server standing in for Lorem Picsum.
+     */
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    /**
+     * Tests that request timing is logged without consuming the response body.
+     */
+    @Test
+    public void timingLeavesBodyUnread() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        List<String> logs = new ArrayList<>();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new TimingInterceptor(logs::add))
+                .build();
+
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/v2/list")).build()).execute()) {
+            assertEquals(1, logs.size());
+            assertTrue(logs.get(0).startsWith("GET " + server.url("/v2/list") + " -> 200 in "));
+            assertEquals("[]", response.body().string());
+        }
+    }
+
+    /**
+     * Tests that a client pointed at a local server calls the API there, through the supplied
+     *  interceptors and timeouts.
+     */
+    @Test
+    public void configuredClient() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"1\",\"author\":\"Paul Jarvis\"}]"));
+
+        List<String> intercepted = new ArrayList<>();
+        Client client = new Client(new Client.Config.Builder()
+                .baseUrl(server.url("/v2/").toString())
+                .readTimeoutMillis(1234)
+                .maxRequestsPerHost(3)
+                .addInterceptor(chain -> {
+                    intercepted.add(chain.request().url().encodedPath());
+                    return chain.proceed(chain.request());
+                })
+                .build());
+
+        retrofit2.Response<List<Picture>> response = client.getPicsumAPI().getImagePage(1, 2).blockingFirst();
+        RecordedRequest request = server.takeRequest();
+
+        assertEquals("/v2/list?page=1&limit=2", request.getPath());
+        assertEquals("Paul Jarvis", response.body().get(0).getAuthor());
+        assertEquals(1, intercepted.size());
+
+        assertEquals(1234, client.getImageClient().readTimeoutMillis());
+        assertEquals(3, client.getImageClient().dispatcher().getMaxRequestsPerHost());
+    }
+
+    /**
+     * Tests that API calls and image downloads reuse the same connection.
+     */
+    @Test
+    public void imagesShareConnections() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+        server.enqueue(new MockResponse().setBody("image"));
+
+        Client client = new Client(new Client.Config.Builder().baseUrl(server.url("/v2/").toString()).build());
+
+        client.getPicsumAPI().getImagePage(1, 2).blockingFirst();
+
+        try (Response response = client.getImageClient().newCall(new Request.Builder().url(server.url("/id/0/100/100")).build()).execute()) {
+            assertEquals("image", response.body().string());
+        }
+
+        // The sequence number counts requests made on the same connection
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    /**
+     * Tests that API calls run on the shared dispatcher, so they count towards its request
+     *  limits along with the image downloads.
+     */
+    @Test
+    public void apiCallsDispatched() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        List<String> threads = new ArrayList<>();
+        Client client = new Client(new Client.Config.Builder()
+                .baseUrl(server.url("/v2/").toString())
+                .addInterceptor(chain -> {
+                    threads.add(Thread.currentThread().getName());
+                    return chain.proceed(chain.request());
+                })
+                .build());
+
+        client.getPicsumAPI().getImagePage(1, 2).blockingFirst();
+
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0), threads.get(0).startsWith("OkHttp"));
+    }
+
+    /**
+     * Tests that threads asking for the client at the same time all get one client, and only
+     *  one is ever built.
+     */
+    @Test
+    public void oneClientBuilt() throws Exception {
+        Client.Holder holder = new Client.Holder();
+        holder.configure(new Client.Config.Builder().baseUrl(server.url("/v2/").toString()).build());
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Client>> clients = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            clients.add(executor.submit(() -> {
+                start.await();
+                return holder.get();
+            }));
+        }
+
+        start.countDown();
+
+        Client first = clients.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<Client> client : clients) {
+            assertSame(first, client.get(10, TimeUnit.SECONDS));
+        }
+
+        executor.shutdown();
+        assertEquals(1, holder.getBuildCount());
+    }
+
+    /**
+     * Tests that the configuration can't be changed once the client is built.
+     */
+    @Test
+    public void configuredBeforeBuilt() {
+        Client.Holder holder = new Client.Holder();
+        holder.configure(new Client.Config.Builder().build());
+        holder.get();
+
+        try {
+            holder.configure(new Client.Config.Builder().build());
+            fail("Configured after the client was built");
+        } catch (IllegalStateException e) {
+            assertEquals(1, holder.getBuildCount());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.utils.sort.MsdRadixSort;
+import codes.carl.gallery.utils.sort.Trie;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the locale collated Alphabetical sort method.
+ *
+ * @see codes.carl.gallery.utils.SortUtils#localeSort(List, Locale)
+ */
+public class LocaleSortTests {
+
+    /**
+     * Tests that accented names sort next to the unaccented letter instead of being dropped.
+     */
+    @Test
+    public void accentedNames() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture("Zoe"));
+        pics.add(new Picture("Élodie"));
+        pics.add(new Picture("Mario"));
+        pics.add(new Picture("Ángel"));
+        pics.add(new Picture("Emma"));
+        pics.add(new Picture("Bob"));
+
+        List<Picture> sortedCheck = new ArrayList<>();
+        sortedCheck.add(new Picture("Ángel"));
+        sortedCheck.add(new Picture("Bob"));
+        sortedCheck.add(new Picture("Élodie"));
+        sortedCheck.add(new Picture("Emma"));
+        sortedCheck.add(new Picture("Mario"));
+        sortedCheck.add(new Picture("Zoe"));
+
+        assertEquals(sortedCheck, SortUtils.localeSort(pics, Locale.ENGLISH));
+    }
+
+    /**
+     * Tests that names with no English letters at all are still ordered among themselves,
+     *  rather than all landing at the front in list order as with the Trie sort.
+     */
+    @Test
+    public void nonEnglishNames() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture("Пётр"));
+        pics.add(new Picture("Анна"));
+        pics.add(new Picture("Борис"));
+
+        List<Picture> sortedCheck = new ArrayList<>();
+        sortedCheck.add(new Picture("Анна"));
+        sortedCheck.add(new Picture("Борис"));
+        sortedCheck.add(new Picture("Пётр"));
+
+        assertEquals(sortedCheck, SortUtils.localeSort(pics, new Locale("ru")));
+    }
+
+    /**
+     * Tests that the sort agrees with the collator used directly, including the order of
+     *  pictures by the same author.
+     */
+    @Test
+    public void matchesCollator() {
+        Random random = new Random(42);
+        String[] names = {"Łukasz", "Lukas", "łucja", "Élodie", "elodie", "Eloise", "Åsa", "Zoë",
+                "Ørjan", "Carl", "carl", "Çelik", "Ana María", "Anna", "", "  ", "Žofie", "Zofia"};
+        List<Picture> pics = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            pics.add(new Picture(names[random.nextInt(names.length)]));
+        }
+
+        Collator collator = Collator.getInstance(Locale.ENGLISH);
+        List<Picture> expected = new ArrayList<>(pics);
+        expected.sort((a, b) -> collator.compare(a.getAuthor(), b.getAuthor()));
+
+        assertSameOrder(expected, SortUtils.localeSort(pics, Locale.ENGLISH));
+    }
+
+    /**
+     * Tests that for plain English names, which the Trie sort fully understands, both sorts
+     *  give the same order.
+     */
+    @Test
+    public void agreesWithTrie() {
+        Random random = new Random(42);
+        List<Picture> pics = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            char[] name = new char[1 + random.nextInt(6)];
+
+            for (int c = 0; c < name.length; c++) {
+                name[c] = (char) ('a' + random.nextInt(4));
+            }
+
+            name[0] = Character.toUpperCase(name[0]);
+            pics.add(new Picture(new String(name)));
+        }
+
+        Trie trie = new Trie();
+        for (Picture pic : pics) {
+            trie.insert(pic);
+        }
+
+        assertSameOrder(trie.flatten(), SortUtils.localeSort(pics, Locale.ENGLISH));
+    }
+
+    /**
+     * Tests the radix sort on its own with random byte keys, including long shared prefixes and
+     *  keys that are prefixes of other keys.
+     */
+    @Test
+    public void radixSortsLikeComparator() {
+        Random random = new Random(42);
+
+        for (int size : new int[]{0, 1, 2, 15, 17, 100, 5000}) {
+            byte[][] keys = new byte[size][];
+
+            for (int i = 0; i < size; i++) {
+                byte[] key = new byte[random.nextInt(24)];
+                random.nextBytes(key);
+
+                // Long common prefixes and few distinct values make for many ties
+                for (int b = 0; b < key.length; b++) {
+                    key[b] = b < 12 ? 7 : (byte) (key[b] & 0x83);
+                }
+
+                keys[i] = key;
+            }
+
+            int[] indexes = new int[size];
+            Integer[] expected = new Integer[size];
+
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+                expected[i] = i;
+            }
+
+            MsdRadixSort.sort(keys, indexes);
+            Arrays.sort(expected, (a, b) -> compareUnsigned(keys[a], keys[b]));
+
+            for (int i = 0; i < size; i++) {
+                assertEquals("Size " + size + " position " + i, (int) expected[i], indexes[i]);
+            }
+        }
+    }
+
+    /**
+     * Tests expected behavior if the list is empty.
+     *
+     * Should not break.
+     */
+    @Test
+    public void emptyList() {
+        assertTrue(SortUtils.localeSort(new ArrayList<>(), Locale.ENGLISH).isEmpty());
+    }
+
+    /**
+     * Asserts that two lists hold the same picture objects in the same order.
+     *
+     * @param expected The expected pictures
+     * @param actual   The actual pictures
+     */
+    private static void assertSameOrder(List<Picture> expected, List<Picture> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame("Position " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * Compares two byte arrays as unsigned bytes, shorter prefixes first.
+     *
+     * @param a The first array
+     * @param b The second array
+     * @return The comparison result
+     */
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return a.length - b.length;
+    }
+}
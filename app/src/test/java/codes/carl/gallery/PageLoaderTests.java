@@ -0,0 +1,234 @@
+package codes.carl.gallery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.network.API;
+import codes.carl.gallery.network.PageLoader;
+import codes.carl.gallery.network.PictureListConverterFactory;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for downloading the image list one page at a time.
+ *
+ * @see codes.carl.gallery.network.PageLoader
+ */
+public class PageLoaderTests {
+
+    /**
+     * A local server standing in for Lorem Picsum.
+     */
+    private MockWebServer server;
+
+    /**
+     * The API pointed at the local server.
+     */
+    private API api;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/v2/"))
+                .addConverterFactory(PictureListConverterFactory.create(new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY)))
+                .addConverterFactory(GsonConverterFactory.create())
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build()
+                .create(API.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    /**
+     * Tests that pages are requested in order until a short page is returned.
+     */
+    @Test
+    public void loadsPagesUntilShortPage() throws Exception {
+        server.enqueue(page(0, 2));
+        server.enqueue(page(2, 2));
+        server.enqueue(page(4, 1));
+
+        PageLoader loader = new PageLoader(api, 2, 0);
+
+        Response<List<Picture>> first = loader.loadFirstPage().blockingFirst();
+        assertEquals(2, first.body().size());
+        assertEquals("0", first.body().get(0).getId());
+        assertEquals("/v2/list?page=1&limit=2", server.takeRequest().getPath());
+
+        Response<List<Picture>> second = loader.loadNextPage().blockingFirst();
+        assertEquals("2", second.body().get(0).getId());
+        assertEquals("/v2/list?page=2&limit=2", server.takeRequest().getPath());
+        assertFalse(loader.isLastPageReached());
+
+        Response<List<Picture>> third = loader.loadNextPage().blockingFirst();
+        assertEquals(1, third.body().size());
+        assertEquals("/v2/list?page=3&limit=2", server.takeRequest().getPath());
+        assertTrue(loader.isLastPageReached());
+
+        // Nothing more is requested after the last page
+        assertTrue(loader.loadNextPage().toList().blockingGet().isEmpty());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    /**
+     * Tests that a finished page is no longer loading by the time the subscriber hears it is
+     *  done, so the next page can be asked for straight away.
+     */
+    @Test
+    public void notLoadingWhenComplete() {
+        server.enqueue(page(0, 2));
+        server.enqueue(page(2, 2));
+
+        PageLoader loader = new PageLoader(api, 2, 0);
+        loader.loadFirstPage().blockingFirst();
+
+        boolean[] loadingOnComplete = {true};
+        loader.loadNextPage()
+                .doOnComplete(() -> loadingOnComplete[0] = loader.isLoading())
+                .blockingSubscribe();
+
+        assertFalse(loadingOnComplete[0]);
+        assertTrue(loader.shouldLoadNextPage(3, 4));
+    }
+
+    /**
+     * Tests that a failed page is downloaded again on the next attempt.
+     */
+    @Test
+    public void failedPageIsRetried() throws Exception {
+        server.enqueue(page(0, 2));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(page(2, 2));
+
+        PageLoader loader = new PageLoader(api, 2, 0);
+        loader.loadFirstPage().blockingFirst();
+
+        assertEquals(500, loader.loadNextPage().blockingFirst().code());
+        assertEquals(2, loader.getNextPage());
+        assertFalse(loader.isLoading());
+
+        assertEquals(200, loader.loadNextPage().blockingFirst().code());
+        assertEquals(3, loader.getNextPage());
+    }
+
+    /**
+     * Tests that reloading starts again from the first page.
+     */
+    @Test
+    public void reloadStartsFromFirstPage() throws Exception {
+        server.enqueue(page(0, 1));
+        server.enqueue(page(0, 2));
+
+        PageLoader loader = new PageLoader(api, 2, 0);
+        loader.loadFirstPage().blockingFirst();
+        assertTrue(loader.isLastPageReached());
+
+        loader.loadFirstPage().blockingFirst();
+        server.takeRequest();
+        assertEquals("/v2/list?page=1&limit=2", server.takeRequest().getPath());
+        assertFalse(loader.isLastPageReached());
+    }
+
+    /**
+     * Tests that an unchanged first page is not downloaded again and loading continues from the
+     * second page.
+     */
+    @Test
+    public void revalidateUnchangedFirstPage() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304));
+        server.enqueue(page(2, 2));
+
+        PageLoader loader = new PageLoader(api, 2, 0);
+
+        Response<List<Picture>> first = loader.revalidateFirstPage("\"v1\"", "Sat, 11 Apr 2020 13:21:46 GMT", 2).blockingFirst();
+        assertEquals(PageLoader.NOT_MODIFIED, first.code());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("\"v1\"", request.getHeader("If-None-Match"));
+        assertEquals("Sat, 11 Apr 2020 13:21:46 GMT", request.getHeader("If-Modified-Since"));
+        assertEquals(2, loader.getNextPage());
+        assertFalse(loader.isLastPageReached());
+
+        loader.loadNextPage().blockingFirst();
+        assertEquals("/v2/list?page=2&limit=2", server.takeRequest().getPath());
+    }
+
+    /**
+     * Tests that a changed first page is downloaded again and validators are left out when
+     * nothing was cached with them.
+     */
+    @Test
+    public void revalidateChangedFirstPage() throws Exception {
+        server.enqueue(page(10, 1));
+
+        PageLoader loader = new PageLoader(api, 2, 0);
+
+        Response<List<Picture>> first = loader.revalidateFirstPage(null, null, 2).blockingFirst();
+        assertEquals("10", first.body().get(0).getId());
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("If-None-Match"));
+        assertNull(request.getHeader("If-Modified-Since"));
+        assertTrue(loader.isLastPageReached());
+    }
+
+    /**
+     * Tests that the next page is requested once the user scrolls within the prefetch distance.
+     */
+    @Test
+    public void prefetchDistance() {
+        PageLoader loader = new PageLoader(api, 50, 10);
+
+        assertFalse(loader.shouldLoadNextPage(10, 50));
+        assertFalse(loader.shouldLoadNextPage(38, 50));
+        assertTrue(loader.shouldLoadNextPage(39, 50));
+        assertTrue(loader.shouldLoadNextPage(49, 50));
+    }
+
+    /**
+     * Builds a page of pictures as Lorem Picsum would return it.
+     *
+     * @param firstId The id of the first picture on the page
+     * @param count   The number of pictures on the page
+     * @return The mock server response
+     */
+    private static MockResponse page(int firstId, int count) {
+        StringBuilder json = new StringBuilder("[");
+
+        for (int i = 0; i < count; i++) {
+            int id = firstId + i;
+
+            if (i > 0)
+                json.append(',');
+
+            json.append("{\"id\":\"").append(id)
+                    .append("\",\"author\":\"Author ").append(id)
+                    .append("\",\"width\":640,\"height\":480")
+                    .append(",\"url\":\"https://unsplash.com/photos/").append(id)
+                    .append("\",\"download_url\":\"https://picsum.photos/id/").append(id).append("/640/480\"}");
+        }
+
+        return new MockResponse().setBody(json.append(']').toString());
+    }
+}
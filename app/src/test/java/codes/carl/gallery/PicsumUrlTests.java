@@ -0,0 +1,84 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.PicsumUrls;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the resized Lorem Picsum picture urls.
+ *
+ * @see codes.carl.gallery.utils.PicsumUrls
+ */
+public class PicsumUrlTests {
+
+    /**
+     * A typical picture, much larger than a grid cell.
+     */
+    private static final Picture PICTURE = new Picture("0", "Alejandro Escamilla", 5616, 3744,
+            "https://unsplash.com/photos/yC-Yzbqy7PY", "https://picsum.photos/id/0/5616/3744");
+
+    /**
+     * Tests that a grid cell gets a url for a picture resized to at least the cell size.
+     */
+    @Test
+    public void cellSized() {
+        assertEquals("https://picsum.photos/id/0/640/896", PicsumUrls.sizedUrl(PICTURE, 540, 810));
+        assertEquals("https://picsum.photos/id/0/512/768", PicsumUrls.sizedUrl(PICTURE, 512, 768));
+        assertEquals("https://picsum.photos/id/0/64/32", PicsumUrls.sizedUrl(PICTURE, 50, 1));
+    }
+
+    /**
+     * Tests that cell sizes close to each other share a url, and the url is never much larger
+     *  than the cell.
+     */
+    @Test
+    public void bucketed() {
+        Set<String> urls = new HashSet<>();
+
+        for (int width = 513; width <= 640; width++) {
+            urls.add(PicsumUrls.sizedUrl(PICTURE, width, width));
+        }
+
+        assertEquals(1, urls.size());
+
+        for (int size = 128; size < 3000; size++) {
+            String url = PicsumUrls.sizedUrl(PICTURE, size, 100);
+            long width = Long.parseLong(url.split("/")[5]);
+
+            assertTrue(url, width >= size && width <= size * 1.25);
+        }
+    }
+
+    /**
+     * Tests that a picture is never asked for larger than the original, and that the original is
+     *  used when the cell is at least as large.
+     */
+    @Test
+    public void neverLargerThanOriginal() {
+        Picture small = new Picture("7", "Paul", 600, 400, "", "https://picsum.photos/id/7/600/400");
+
+        assertEquals("https://picsum.photos/id/7/600/320", PicsumUrls.sizedUrl(small, 590, 300));
+        assertEquals("https://picsum.photos/id/7/600/400", PicsumUrls.sizedUrl(small, 800, 300));
+        assertEquals("https://picsum.photos/id/7/600/400", PicsumUrls.sizedUrl(small, 600, 400));
+        assertEquals("https://picsum.photos/id/7/600/400", PicsumUrls.sizedUrl(small, 2000, 2000));
+    }
+
+    /**
+     * Tests that pictures from elsewhere and unknown sizes fall back to the download url.
+     */
+    @Test
+    public void fallback() {
+        Picture other = new Picture("1", "Carl", 5000, 5000, "", "https://example.com/1.jpg");
+
+        assertEquals("https://example.com/1.jpg", PicsumUrls.sizedUrl(other, 100, 100));
+        assertEquals(PICTURE.getDownload_url(), PicsumUrls.sizedUrl(PICTURE, 0, 100));
+        assertEquals(PICTURE.getDownload_url(), PicsumUrls.sizedUrl(PICTURE, Integer.MIN_VALUE, Integer.MIN_VALUE));
+        assertNull(PicsumUrls.sizedUrl(new Picture("Paul"), 100, 100));
+    }
+}
@@ -0,0 +1,89 @@
+package codes.carl.gallery;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the on-disk picture cache.
+ *
+ * @see codes.carl.gallery.model.PictureCache
+ */
+public class PictureCacheTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Holds the shared copy of each author name read.
+     */
+    private final AuthorDictionary authors = new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY);
+
+    /**
+     * Tests that cached pictures and their validators are read back as they were written.
+     */
+    @Test
+    public void roundTrip() throws Exception {
+        List<Picture> pictures = new ArrayList<>();
+        pictures.add(new Picture("0", "Alejandro Escamilla", 5616, 3744,
+                "https://unsplash.com/photos/yC-Yzbqy7PY", "https://picsum.photos/id/0/5616/3744"));
+        pictures.add(new Picture("1", "Łukasz Élodie 日本", 5000, 3333, null, null));
+        pictures.add(new Picture("Carl"));
+
+        PictureCache cache = new PictureCache(new File(folder.getRoot(), "pictures.bin"), authors);
+        cache.save(pictures, "\"abc\"", null);
+
+        PictureCache.Snapshot snapshot = cache.load();
+
+        assertEquals(pictures, snapshot.getPictures());
+        assertEquals("\"abc\"", snapshot.getEtag());
+        assertNull(snapshot.getLastModified());
+    }
+
+    /**
+     * Tests that a missing cache file reads as empty.
+     *
+     * Should not break.
+     */
+    @Test
+    public void missingFile() {
+        PictureCache cache = new PictureCache(new File(folder.getRoot(), "missing.bin"), authors);
+
+        assertTrue(cache.load().isEmpty());
+    }
+
+    /**
+     * Tests that a damaged cache file reads as empty.
+     *
+     * Should not break.
+     */
+    @Test
+    public void damagedFile() throws Exception {
+        File file = new File(folder.getRoot(), "pictures.bin");
+
+        List<Picture> pictures = new ArrayList<>();
+        pictures.add(new Picture("0", "Author", 10, 10, "url", "download_url"));
+        new PictureCache(file, authors).save(pictures, null, null);
+
+        // Cut the file short in the middle of the picture
+        long length = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.getChannel().truncate(length - 8);
+        }
+
+        assertTrue(new PictureCache(file, authors).load().isEmpty());
+    }
+}
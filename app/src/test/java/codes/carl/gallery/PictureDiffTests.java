@@ -0,0 +1,153 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureKeys;
+import codes.carl.gallery.model.PictureStore;
+import codes.carl.gallery.utils.PictureDiff;
+import codes.carl.gallery.utils.sort.SortIndex;
+import codes.carl.gallery.utils.sort.SortType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for telling apart the pictures of two galleries.
+ *
+ * @see codes.carl.gallery.utils.PictureDiff
+ */
+public class PictureDiffTests {
+
+    /**
+     * Tests that pictures are matched by id, in stores, sorted views and plain lists alike.
+     */
+    @Test
+    public void sameItem() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(picture("7", "Paul Jarvis", 100, 200));
+        pics.add(picture("abc", "Carl Poole", 300, 400));
+        pics.add(picture("8", "Carl Poole", 300, 400));
+
+        List<Picture> changed = new ArrayList<>();
+        changed.add(picture("7", "Paul Jarvis", 100, 201));
+        changed.add(picture("abc", "Carl Poole", 300, 400));
+        changed.add(picture("08", "Carl Poole", 300, 400));
+
+        PictureStore store = new PictureStore.Builder().addAll(pics).build();
+        PictureStore changedStore = new PictureStore.Builder().addAll(changed).build();
+
+        for (List<Picture> a : lists(pics, store)) {
+            for (List<Picture> b : lists(changed, changedStore)) {
+                assertTrue(PictureDiff.sameItem(a, 0, b, 0));
+                assertFalse(PictureDiff.sameContents(a, 0, b, 0));
+
+                assertTrue(PictureDiff.sameItem(a, 1, b, 1));
+                assertTrue(PictureDiff.sameContents(a, 1, b, 1));
+
+                // An id with a leading zero is a different id
+                assertFalse(PictureDiff.sameItem(a, 2, b, 2));
+                assertFalse(PictureDiff.sameItem(a, 0, b, 1));
+            }
+        }
+
+        assertEquals(7, PictureDiff.numericId(store, 0));
+        assertEquals(PictureKeys.NO_NUMERIC_ID, PictureDiff.numericId(store, 1));
+        assertEquals(PictureKeys.NO_NUMERIC_ID, PictureDiff.numericId(changed, 2));
+    }
+
+    /**
+     * Tests that a sorted view reads the keys of the picture it shows at each position.
+     */
+    @Test
+    public void sortedKeys() {
+        List<Picture> pics = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            pics.add(picture(String.valueOf(i), "Author " + (char) ('z' - i % 26), 10 + i, 10));
+        }
+
+        List<Picture> sorted = new SortIndex(new PictureStore.Builder().addAll(pics).build(), Locale.ENGLISH)
+                .sorted(SortType.ALPHA);
+
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(Integer.parseInt(sorted.get(i).getId()), PictureDiff.numericId(sorted, i));
+            assertEquals(sorted.get(i).fingerprint(), PictureDiff.fingerprint(sorted, i));
+        }
+    }
+
+    /**
+     * Tests that comparing two stores, sorted or not, builds no pictures.
+     */
+    @Test
+    public void noAllocation() {
+        List<Picture> pics = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            pics.add(picture(String.valueOf(i), "Author " + i % 40, 100 + i, 200));
+        }
+
+        PictureStore store = new PictureStore.Builder().addAll(pics).build();
+        List<Picture> sorted = new SortIndex(store, Locale.ENGLISH).sorted(SortType.SIZE);
+        int[] matches = {0};
+
+        // Warm up so the measurement isn't counting class loading or compilation
+        for (int round = 0; round < 20; round++) {
+            matches[0] += compareAll(store, sorted);
+        }
+
+        Allocations.assertAllocatesNothing(() -> matches[0] += compareAll(store, sorted));
+
+        assertEquals(21 * 1000, matches[0]);
+    }
+
+    /**
+     * Compares every position of one gallery with the same position of another.
+     *
+     * @param a The first gallery
+     * @param b The second gallery
+     * @return The number of positions holding the same picture with the same contents
+     */
+    private static int compareAll(List<Picture> a, List<Picture> b) {
+        int matches = 0;
+
+        for (int i = 0; i < a.size(); i++) {
+            if (PictureDiff.sameItem(a, i, b, i) && PictureDiff.sameContents(a, i, b, i)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Gets a gallery as a plain list, as a store, and as a sorted view of the store.
+     *
+     * @param pictures The pictures as a plain list
+     * @param store    The same pictures in a store
+     * @return The three lists
+     */
+    private static List<List<Picture>> lists(List<Picture> pictures, PictureStore store) {
+        List<List<Picture>> lists = new ArrayList<>();
+        lists.add(pictures);
+        lists.add(store);
+        lists.add(new SortIndex(store, Locale.ENGLISH).sorted(SortType.NORMAL));
+
+        return lists;
+    }
+
+    /**
+     * Makes a Lorem Picsum picture.
+     *
+     * @param id     The picture id
+     * @param author The picture author
+     * @param width  The width in pixels
+     * @param height The height in pixels
+     * @return The picture
+     */
+    private static Picture picture(String id, String author, long width, long height) {
+        return new Picture(id, author, width, height, "https://unsplash.com/photos/" + id,
+                "https://picsum.photos/id/" + id + "/" + width + "/" + height);
+    }
+}
@@ -0,0 +1,239 @@
+package codes.carl.gallery;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import codes.carl.gallery.model.AuthorDictionary;
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.network.PictureListConverterFactory;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the streaming picture list parser.
+ *
+ * @see codes.carl.gallery.network.PictureListParser
+ * @see codes.carl.gallery.network.PictureListConverterFactory
+ */
+public class PictureParserTests {
+
+    /**
+     * The response type of the picture list.
+     */
+    private static final Type PICTURE_LIST = new TypeToken<List<Picture>>() {}.getType();
+
+    /**
+     * The media type of the picture list responses.
+     */
+    private static final MediaType JSON = MediaType.parse("application/json; charset=UTF-8");
+
+    /**
+     * The allocation budget per parsed picture, including its strings and the decode buffers.
+     */
+    private static final long MAX_BYTES_PER_PICTURE = 3 * 1024;
+
+    /**
+     * A Retrofit instance used to look up converters.
+     */
+    private final Retrofit retrofit = new Retrofit.Builder()
+            .baseUrl("https://picsum.photos/v2/")
+            .build();
+
+    /**
+     * Holds the shared copy of each author name parsed.
+     */
+    private final AuthorDictionary authors = new AuthorDictionary(AuthorDictionary.DEFAULT_CAPACITY);
+
+    /**
+     * Tests that every field of a picture is read.
+     */
+    @Test
+    public void typical() throws Exception {
+        String json = "[{\"id\":\"0\",\"author\":\"Alejandro Escamilla\",\"width\":5616,\"height\":3744,"
+                + "\"url\":\"https://unsplash.com/photos/yC-Yzbqy7PY\","
+                + "\"download_url\":\"https://picsum.photos/id/0/5616/3744\"}]";
+
+        List<Picture> pictures = streamingParse(json);
+
+        assertEquals(1, pictures.size());
+        assertEquals(new Picture("0", "Alejandro Escamilla", 5616, 3744,
+                "https://unsplash.com/photos/yC-Yzbqy7PY", "https://picsum.photos/id/0/5616/3744"), pictures.get(0));
+    }
+
+    /**
+     * Tests that null and unknown fields are tolerated.
+     *
+     * Should not break.
+     */
+    @Test
+    public void nullAndUnknownFields() throws Exception {
+        String json = "[{\"id\":\"7\",\"author\":null,\"extra\":{\"nested\":[1,2]},\"width\":\"10\",\"height\":20}]";
+
+        Picture picture = streamingParse(json).get(0);
+
+        assertEquals("7", picture.getId());
+        assertNull(picture.getAuthor());
+        assertEquals(10, picture.getWidth());
+        assertEquals(20, picture.getHeight());
+    }
+
+    /**
+     * Tests that a body with anything but whitespace after the list is rejected, as by the Gson
+     *  converter, rather than parsed as if the list were all of it.
+     */
+    @Test
+    public void trailingContent() throws Exception {
+        String list = "[{\"id\":\"0\",\"author\":\"Paul\",\"width\":1,\"height\":1}]";
+
+        assertEquals(1, streamingParse(list + " \n").size());
+
+        for (String json : new String[]{list + list, list + "[{\"id\":", list + " x"}) {
+            try {
+                streamingParse(json);
+                fail("Parsed " + json);
+            } catch (IOException | JsonIOException expected) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Tests that the converter is only used for picture lists.
+     */
+    @Test
+    public void otherTypesFallThrough() {
+        Converter.Factory factory = PictureListConverterFactory.create(authors);
+
+        assertNull(factory.responseBodyConverter(String.class, new Annotation[0], retrofit));
+        assertNull(factory.responseBodyConverter(new TypeToken<List<String>>() {}.getType(), new Annotation[0], retrofit));
+        assertNotNull(factory.responseBodyConverter(PICTURE_LIST, new Annotation[0], retrofit));
+    }
+
+    /**
+     * Measures the parse time and allocation of a 50k picture list against reflective Gson
+     * binding. The streaming parser should produce the same pictures while allocating little more
+     * than the pictures themselves.
+     */
+    @Test
+    public void largeList() throws Exception {
+        String json = pictureList(50_000);
+
+        // Warm up both parsers so the measurement isn't dominated by class loading
+        for (int i = 0; i < 3; i++) {
+            streamingParse(json);
+            gsonParse(json);
+        }
+
+        long gsonStart = System.nanoTime();
+        long gsonAllocated = Allocations.currentThreadBytes();
+        List<Picture> gsonPictures = gsonParse(json);
+        gsonAllocated = Allocations.currentThreadBytes() - gsonAllocated;
+        long gsonTime = System.nanoTime() - gsonStart;
+
+        long streamingStart = System.nanoTime();
+        long streamingAllocated = Allocations.currentThreadBytes();
+        List<Picture> streamingPictures = streamingParse(json);
+        streamingAllocated = Allocations.currentThreadBytes() - streamingAllocated;
+        long streamingTime = System.nanoTime() - streamingStart;
+
+        assertEquals(gsonPictures, streamingPictures);
+        assertTrue(String.format("Streaming: %d ms, %d KB allocated; gson: %d ms, %d KB allocated",
+                streamingTime / 1_000_000, streamingAllocated / 1024, gsonTime / 1_000_000, gsonAllocated / 1024),
+                streamingAllocated / streamingPictures.size() < MAX_BYTES_PER_PICTURE);
+    }
+
+    /**
+     * Tests that an author name parsed in separate responses with the same dictionary is the
+     *  same string each time.
+     */
+    @Test
+    public void authorsInterned() throws Exception {
+        String json = "[{\"id\":\"1\",\"author\":\"Paul Jarvis\"},{\"id\":\"2\",\"author\":\"Paul Jarvis\"}]";
+
+        List<Picture> first = streamingParse(json);
+        List<Picture> second = streamingParse(json);
+
+        assertSame(first.get(0).getAuthor(), first.get(1).getAuthor());
+        assertSame(first.get(0).getAuthor(), second.get(0).getAuthor());
+    }
+
+    /**
+     * Parses a picture list with the streaming converter.
+     *
+     * @param json The JSON picture list
+     * @return The parsed pictures
+     */
+    @SuppressWarnings("unchecked")
+    private List<Picture> streamingParse(String json) throws Exception {
+        Converter<ResponseBody, ?> converter = PictureListConverterFactory.create(authors)
+                .responseBodyConverter(PICTURE_LIST, new Annotation[0], retrofit);
+
+        return (List<Picture>) converter.convert(body(json));
+    }
+
+    /**
+     * Parses a picture list with the reflective Gson converter.
+     *
+     * @param json The JSON picture list
+     * @return The parsed pictures
+     */
+    @SuppressWarnings("unchecked")
+    private List<Picture> gsonParse(String json) throws Exception {
+        Converter<ResponseBody, ?> converter = GsonConverterFactory.create()
+                .responseBodyConverter(PICTURE_LIST, new Annotation[0], retrofit);
+
+        return (List<Picture>) converter.convert(body(json));
+    }
+
+    /**
+     * Wraps JSON in a response body, as OkHttp would hand it to Retrofit.
+     *
+     * @param json The JSON to wrap
+     * @return The response body
+     */
+    private static ResponseBody body(String json) {
+        return ResponseBody.create(JSON, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a JSON picture list shaped like the Lorem Picsum response.
+     *
+     * @param count The number of pictures in the list
+     * @return The JSON picture list
+     */
+    private static String pictureList(int count) {
+        StringBuilder json = new StringBuilder("[");
+
+        for (int id = 0; id < count; id++) {
+            if (id > 0)
+                json.append(',');
+
+            json.append("{\"id\":\"").append(id)
+                    .append("\",\"author\":\"Author ").append(id % 500)
+                    .append("\",\"width\":").append(1000 + id % 4000)
+                    .append(",\"height\":").append(800 + id % 3000)
+                    .append(",\"url\":\"https://unsplash.com/photos/").append(Integer.toHexString(id * 31))
+                    .append("\",\"download_url\":\"https://picsum.photos/id/").append(id).append("/5616/3744\"}");
+        }
+
+        return json.append(']').toString();
+    }
+}
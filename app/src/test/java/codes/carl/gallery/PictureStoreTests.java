@@ -0,0 +1,161 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the columnar picture store.
+ *
+ * @see codes.carl.gallery.model.PictureStore
+ */
+public class PictureStoreTests {
+
+    /**
+     * The author names pictures are given.
+     */
+    private static final String[] AUTHORS = {"Paul Jarvis", "Carl Poole", "Alejandro Escamilla", "Élodie", "Łukasz"};
+
+    /**
+     * Tests that every picture comes back out of the store equal to the picture that was added.
+     */
+    @Test
+    public void roundTrip() {
+        List<Picture> pics = pictures(new Random(42), 0, 500);
+        PictureStore store = new PictureStore.Builder().addAll(pics).build();
+
+        assertEquals(pics.size(), store.size());
+        assertEquals(pics, store);
+        assertEquals(pics.hashCode(), store.hashCode());
+
+        for (int i = 0; i < pics.size(); i++) {
+            assertEquals(pics.get(i).getAuthor(), store.getAuthor(i));
+            assertEquals(pics.get(i).totalPixelsSize(), store.getArea(i));
+        }
+    }
+
+    /**
+     * Tests that each author name is stored once, and the same string is handed out for it.
+     */
+    @Test
+    public void authorsShared() {
+        PictureStore store = new PictureStore.Builder().addAll(pictures(new Random(42), 0, 500)).build();
+
+        assertEquals(AUTHORS.length, store.getAuthorCount());
+        assertSame(store.getAuthor(0), store.get(0).getAuthor());
+
+        for (int i = 1; i < store.size(); i++) {
+            if (store.getAuthor(i).equals(store.getAuthor(0))) {
+                assertSame(store.getAuthor(0), store.getAuthor(i));
+            }
+        }
+    }
+
+    /**
+     * Tests that pictures which don't fit the columns are kept as they are.
+     */
+    @Test
+    public void irregularPictures() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture("0", "Paul", 300, 200, "https://unsplash.com/photos/a", "https://picsum.photos/id/0/300/200"));
+        pics.add(new Picture("abc", "Carl", 100, 100, "https://unsplash.com/photos/b", "https://picsum.photos/id/abc/100/100"));
+        pics.add(new Picture("007", "Zoom", 100, 100, "", "https://picsum.photos/id/007/100/100"));
+        pics.add(new Picture("8", "Andrew", 400, 400, "", "https://picsum.photos/id/8/5616/3744"));
+        pics.add(new Picture("9", null, 10, 10, null, null));
+        pics.add(new Picture("9999999999", "Paul", 10, 10, "", "https://picsum.photos/id/9999999999/10/10"));
+        pics.add(new Picture(null, null, 0, 0, null, null));
+        pics.add(new Picture("10", "Paul", 1, 2, "", "https://picsum.photos/id/10/1/2"));
+
+        PictureStore store = new PictureStore.Builder().addAll(pics).build();
+
+        assertEquals(pics, store);
+        assertNull(store.getAuthor(4));
+        assertEquals(4, store.getAuthorCount());
+    }
+
+    /**
+     * Tests that a builder can keep adding pictures after building, without changing the
+     *  stores already built.
+     */
+    @Test
+    public void builderReused() {
+        Random random = new Random(42);
+        List<Picture> first = pictures(random, 0, 100);
+        List<Picture> second = pictures(random, 100, 100);
+
+        PictureStore.Builder builder = new PictureStore.Builder(10).addAll(first);
+        PictureStore firstStore = builder.build();
+        PictureStore secondStore = builder.addAll(second).build();
+
+        List<Picture> combined = new ArrayList<>(first);
+        combined.addAll(second);
+
+        assertEquals(first, firstStore);
+        assertEquals(combined, secondStore);
+        assertTrue(secondStore.startsWith(firstStore));
+        assertFalse(firstStore.startsWith(secondStore));
+    }
+
+    /**
+     * Tests that copying a store into a builder gives an equal store.
+     */
+    @Test
+    public void storeCopied() {
+        Random random = new Random(42);
+        PictureStore store = new PictureStore.Builder().addAll(pictures(random, 0, 100)).build();
+        List<Picture> page = pictures(random, 100, 30);
+
+        PictureStore copy = new PictureStore.Builder().addAll(store).addAll(page).build();
+
+        assertEquals(store, copy.subList(0, store.size()));
+        assertEquals(page, copy.subList(store.size(), copy.size()));
+        assertTrue(copy.startsWith(store));
+    }
+
+    /**
+     * Tests that the store holds a large gallery in much less memory than a list of pictures,
+     *  as parsed from the network where every string is its own object.
+     */
+    @Test
+    public void memoryUsage() {
+        List<Picture> pics = pictures(new Random(42), 0, 10_000);
+        PictureStore store = new PictureStore.Builder().addAll(pics).build();
+
+        long listSize = GraphLayout.parseInstance(pics).totalSize();
+        long storeSize = GraphLayout.parseInstance(store).totalSize();
+
+        assertTrue("Store uses " + storeSize + " bytes, list " + listSize, storeSize * 2 < listSize);
+    }
+
+    /**
+     * Generates pictures the way the parser makes them, with new strings for every field.
+     *
+     * @param random  The random number source
+     * @param firstId The id of the first picture
+     * @param count   The number of pictures
+     * @return The pictures
+     */
+    private static List<Picture> pictures(Random random, int firstId, int count) {
+        List<Picture> pics = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int id = firstId + i;
+            long width = 1000 + random.nextInt(5000);
+            long height = 1000 + random.nextInt(5000);
+
+            pics.add(new Picture(String.valueOf(id), new String(AUTHORS[random.nextInt(AUTHORS.length)]),
+                    width, height, "https://unsplash.com/photos/" + Long.toString(random.nextLong(), 36),
+                    "https://picsum.photos/id/" + id + "/" + width + "/" + height));
+        }
+
+        return pics;
+    }
+}
@@ -0,0 +1,120 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for picture equality and fingerprints.
+ *
+ * @see codes.carl.gallery.model.Picture
+ */
+public class PictureTests {
+
+    /**
+     * Tests that pictures made with the test constructors are equal when their fields are.
+     */
+    @Test
+    public void testConstructors() {
+        assertEquals(new Picture("Paul"), new Picture("Paul"));
+        assertEquals(new Picture("Paul").hashCode(), new Picture("Paul").hashCode());
+        assertEquals(new Picture(100, 200), new Picture(100, 200));
+        assertEquals(new Picture(), new Picture());
+
+        assertNotEquals(new Picture("Paul"), new Picture("Carl"));
+        assertNotEquals(new Picture(100, 200), new Picture(200, 100));
+        assertNotEquals(new Picture(""), new Picture((String) null));
+        assertNotEquals(new Picture(), new Picture(0, 1));
+    }
+
+    /**
+     * Tests that text moving from one field to the next changes the fingerprint.
+     */
+    @Test
+    public void fieldBoundaries() {
+        Picture a = new Picture("1", "ab", 1, 1, "c", "");
+        Picture b = new Picture("1", "a", 1, 1, "bc", "");
+        Picture c = new Picture("1", "abc", 1, 1, null, "");
+
+        assertNotEquals(a.fingerprint(), b.fingerprint());
+        assertNotEquals(a.fingerprint(), c.fingerprint());
+        assertNotEquals(b.fingerprint(), c.fingerprint());
+        assertNotEquals(a, b);
+    }
+
+    /**
+     * Tests that pictures are identified by id, whatever else about them changed.
+     */
+    @Test
+    public void sameIdentity() {
+        Picture a = new Picture("1", "Paul Jarvis", 100, 200, "a", "b");
+        Picture resized = new Picture("1", "Paul Jarvis", 100, 201, "a", "b");
+        Picture other = new Picture("2", "Paul Jarvis", 100, 200, "a", "b");
+        Picture noId = new Picture("Paul Jarvis");
+
+        assertTrue(a.sameIdentity(resized));
+        assertNotEquals(a, resized);
+        assertFalse(a.sameIdentity(other));
+        assertFalse(a.sameIdentity(null));
+
+        // A picture without an id can't be told apart from another picture without one
+        assertTrue(noId.sameIdentity(noId));
+        assertFalse(noId.sameIdentity(new Picture("Paul Jarvis")));
+        assertFalse(noId.sameIdentity(a));
+    }
+
+    /**
+     * Tests that pictures built by a store have the same fingerprint and hash code as the
+     *  pictures that were added.
+     */
+    @Test
+    public void storeFingerprints() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture("0", "Alejandro Escamilla", 5616, 3744, "https://unsplash.com/photos/yC-Yzbqy7PY",
+                "https://picsum.photos/id/0/5616/3744"));
+        pics.add(new Picture("abc", null, 1, 2, null, null));
+
+        PictureStore store = new PictureStore.Builder().addAll(pics).build();
+
+        for (int i = 0; i < pics.size(); i++) {
+            assertEquals(pics.get(i).fingerprint(), store.getFingerprint(i));
+            assertEquals(pics.get(i).fingerprint(), store.get(i).fingerprint());
+            assertEquals(pics.get(i).hashCode(), store.get(i).hashCode());
+            assertEquals(pics.get(i), store.get(i));
+        }
+    }
+
+    /**
+     * Tests that hashing and comparing pictures doesn't allocate once the fingerprints are known.
+     */
+    @Test
+    public void noAllocation() {
+        Picture a = new Picture("0", "Alejandro Escamilla", 5616, 3744, "https://unsplash.com/photos/yC-Yzbqy7PY",
+                "https://picsum.photos/id/0/5616/3744");
+        Picture b = new Picture("0", "Alejandro Escamilla", 5616, 3744, "https://unsplash.com/photos/yC-Yzbqy7PY",
+                "https://picsum.photos/id/0/5616/3745");
+
+        int[] hash = {0};
+        boolean[] equal = {false};
+
+        Runnable compare = () -> {
+            for (int i = 0; i < 100_000; i++) {
+                hash[0] += a.hashCode() + b.hashCode();
+                equal[0] |= a.equals(b);
+            }
+        };
+
+        // Warm up so the measurement isn't counting class loading or compilation
+        compare.run();
+        Allocations.assertAllocatesNothing(compare);
+
+        assertFalse(equal[0]);
+        assertNotEquals(0, hash[0]);
+    }
+}
@@ -0,0 +1,190 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import codes.carl.gallery.utils.PreloadStats;
+import codes.carl.gallery.utils.PreloadWindow;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for working out which gallery positions to preload.
+ *
+ * @see codes.carl.gallery.utils.PreloadWindow
+ */
+public class PreloadWindowTests {
+
+    /**
+     * Tests that the look ahead grows with the scroll speed, within its limits.
+     */
+    @Test
+    public void lookAheadFollowsVelocity() {
+        PreloadWindow window = new PreloadWindow(2, 10, 1f, 100);
+        assertEquals(2, window.getLookAheadRows());
+
+        // A slow scroll of a tenth of a row every 16ms is about 6 rows a second
+        long time = 0;
+        for (int i = 0; i < 20; i++) {
+            window.onScrolled(0.1f, time += 16);
+        }
+
+        assertEquals(6.25f, window.getVelocity(), 0.01f);
+        assertEquals(7, window.getLookAheadRows());
+
+        // A fling is capped
+        for (int i = 0; i < 20; i++) {
+            window.onScrolled(1f, time += 16);
+        }
+
+        assertEquals(10, window.getLookAheadRows());
+
+        window.onScrollStopped();
+        assertEquals(0, window.getVelocity(), 0);
+        assertEquals(2, window.getLookAheadRows());
+
+        // A scroll long after the last one doesn't count as fast
+        window.onScrolled(1f, time + 1000);
+        assertEquals(0, window.getVelocity(), 0);
+    }
+
+    /**
+     * Tests that the positions below the screen are preloaded nearest first, and wider grids
+     *  preload more positions.
+     */
+    @Test
+    public void preloadsAhead() {
+        PreloadWindow window = new PreloadWindow(2, 10, 1f, 100);
+
+        assertArrayEquals(new int[]{6, 7, 8, 9}, window.plan(0, 5, 2, 100).getStart());
+        assertEquals(4, window.getInFlightCount());
+
+        window = new PreloadWindow(2, 10, 1f, 100);
+        assertArrayEquals(new int[]{9, 10, 11, 12, 13, 14}, window.plan(0, 8, 3, 100).getStart());
+
+        // Nothing past the end of the gallery
+        window = new PreloadWindow(2, 10, 1f, 100);
+        assertArrayEquals(new int[]{96, 97, 98, 99}, window.plan(90, 95, 3, 100).getStart());
+    }
+
+    /**
+     * Tests that running and finished preloads aren't started again.
+     */
+    @Test
+    public void noRepeats() {
+        PreloadWindow window = new PreloadWindow(2, 10, 1f, 100);
+
+        assertArrayEquals(new int[]{6, 7, 8, 9}, window.plan(0, 5, 2, 100).getStart());
+
+        window.onFinished(6);
+        window.onFinished(7);
+        window.onCancelled(8);
+
+        assertArrayEquals(new int[]{8, 10, 11}, window.plan(2, 7, 2, 100).getStart());
+        assertEquals(0, window.plan(2, 7, 2, 100).getStart().length);
+        assertEquals(4, window.getInFlightCount());
+
+        window.reset();
+        assertEquals(0, window.getInFlightCount());
+        assertEquals(4, window.plan(2, 7, 2, 100).getStart().length);
+    }
+
+    /**
+     * Tests that turning the scroll around cancels the preloads left behind, and preloads above
+     *  the screen instead.
+     */
+    @Test
+    public void reverseCancels() {
+        PreloadWindow window = new PreloadWindow(2, 10, 1f, 100);
+
+        window.onScrolled(1, 0);
+        assertArrayEquals(new int[]{26, 27, 28, 29}, window.plan(20, 25, 2, 100).getStart());
+
+        window.onScrolled(-1, 1000);
+        PreloadWindow.Plan plan = window.plan(20, 25, 2, 100);
+
+        assertArrayEquals(new int[]{19, 18, 17, 16}, plan.getStart());
+        assertEquals(4, plan.getCancel().length);
+        assertEquals(4, window.getInFlightCount());
+
+        // Preloads that scrolled into view are kept, as they are needed now
+        window.onScrolled(1, 2000);
+        plan = window.plan(16, 21, 2, 100);
+
+        assertEquals(0, plan.getCancel().length);
+        assertArrayEquals(new int[]{22, 23, 24, 25}, plan.getStart());
+    }
+
+    /**
+     * Tests that only pictures inserted before a known preload move it.
+     */
+    @Test
+    public void appendKeepsPreloads() {
+        PreloadWindow window = new PreloadWindow(2, 10, 1f, 100);
+        assertFalse(window.isMovedByInsert(0));
+
+        window.plan(0, 5, 2, 10);
+        window.onFinished(6);
+
+        assertFalse(window.isMovedByInsert(10));
+        assertTrue(window.isMovedByInsert(9));
+        assertTrue(window.isMovedByInsert(3));
+
+        // Finished preloads count too
+        window.onFinished(7);
+        window.onFinished(8);
+        window.onFinished(9);
+        assertTrue(window.isMovedByInsert(6));
+        assertFalse(window.isMovedByInsert(10));
+    }
+
+    /**
+     * Tests that only a limited number of preloads run at once.
+     */
+    @Test
+    public void inFlightCapped() {
+        PreloadWindow window = new PreloadWindow(10, 10, 1f, 3);
+
+        assertArrayEquals(new int[]{6, 7, 8}, window.plan(0, 5, 2, 100).getStart());
+        assertEquals(0, window.plan(0, 5, 2, 100).getStart().length);
+
+        window.onFinished(6);
+        assertArrayEquals(new int[]{9}, window.plan(0, 5, 2, 100).getStart());
+        assertEquals(3, window.getInFlightCount());
+    }
+
+    /**
+     * Tests that nothing is preloaded before the gallery is laid out.
+     */
+    @Test
+    public void emptyGallery() {
+        PreloadWindow window = new PreloadWindow(2, 10, 1f, 100);
+
+        assertEquals(0, window.plan(-1, -1, 2, 0).getStart().length);
+        assertEquals(0, window.plan(0, 5, 2, 0).getStart().length);
+    }
+
+    /**
+     * Tests the share of pictures found in memory when shown, and the count of loads thrown
+     *  away.
+     */
+    @Test
+    public void hitRate() {
+        PreloadStats stats = new PreloadStats();
+        assertEquals(0, stats.getHitRate(), 0);
+
+        stats.recordBind(true);
+        stats.recordBind(true);
+        stats.recordBind(true);
+        stats.recordBind(false);
+        stats.recordWasted();
+        stats.recordWasted();
+
+        assertEquals(2, stats.getWasted());
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.75f, stats.getHitRate(), 0);
+
+        stats.reset();
+        assertEquals(0, stats.getHits() + stats.getMisses() + stats.getWasted());
+    }
+}
@@ -3,23 +3,39 @@ package codes.carl.gallery;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import codes.carl.gallery.model.Picture;
 import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.utils.sort.IntroSort;
+import codes.carl.gallery.utils.sort.ParallelMergeSort;
+import codes.carl.gallery.utils.sort.SizeSorter;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
- * Tests for the custom quicksort method.
+ * Tests for the custom size sort method.
  *
- * @see codes.carl.gallery.utils.sort.QuickSort
+ * @see codes.carl.gallery.utils.SortUtils
+ * @see codes.carl.gallery.utils.sort.IntroSort
  */
 public class SizeSortTests {
 
     /**
-     * Tests the quicksort on a range of typical values
+     * Tests the size sort on a range of typical values
      */
     @Test
     public void typical() {
@@ -51,6 +67,253 @@ public class SizeSortTests {
         assertEquals(sortedCheck, pics);
     }
 
+    /**
+     * Tests that inputs which degrade a first-element pivot quicksort still sort correctly
+     */
+    @Test
+    public void adversarialOrders() {
+        int size = 100_000;
+
+        long[] ascending = new long[size];
+        long[] descending = new long[size];
+        long[] equal = new long[size];
+        long[] sawtooth = new long[size];
+        long[] fewValues = new long[size];
+
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            ascending[i] = i;
+            descending[i] = size - i;
+            equal[i] = 7;
+            sawtooth[i] = i % 1000;
+            fewValues[i] = random.nextInt(3);
+        }
+
+        for (long[] keys : new long[][]{ascending, descending, equal, sawtooth, fewValues}) {
+            assertSortsLikeArraysSort(keys);
+        }
+    }
+
+    /**
+     * Tests random keys of many sizes, covering the insertion sort and pivot sampling cutoffs
+     */
+    @Test
+    public void randomKeys() {
+        Random random = new Random(7);
+
+        for (int size = 0; size < 600; size += 7) {
+            long[] keys = new long[size];
+
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextLong();
+            }
+
+            assertSortsLikeArraysSort(keys);
+        }
+    }
+
+    /**
+     * Tests that the picture positions move along with their sort keys
+     */
+    @Test
+    public void indexesFollowKeys() {
+        long[] keys = {30, 10, 20, 10};
+        int[] indexes = {0, 1, 2, 3};
+
+        IntroSort.sort(keys, indexes);
+
+        assertArrayEquals(new long[]{10, 10, 20, 30}, keys);
+        assertArrayEquals(new int[]{1, 3, 2, 0}, indexes);
+    }
+
+    /**
+     * Tests that pictures with the same area keep their order, whatever the parallel threshold
+     */
+    @Test
+    public void equalAreasKeepOrder() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture(2, 3));
+        pics.add(new Picture(1, 1));
+        pics.add(new Picture(3, 2));
+        pics.add(new Picture(6, 1));
+        pics.add(new Picture(1, 6));
+
+        List<Picture> sortedCheck = new ArrayList<>();
+        sortedCheck.add(pics.get(1));
+        sortedCheck.add(pics.get(0));
+        sortedCheck.add(pics.get(2));
+        sortedCheck.add(pics.get(3));
+        sortedCheck.add(pics.get(4));
+
+        List<Picture> sequential = new ArrayList<>(pics);
+        new SizeSorter(Integer.MAX_VALUE).sort(sequential);
+        assertEquals(sortedCheck, sequential);
+
+        List<Picture> parallel = new ArrayList<>(pics);
+        new SizeSorter(0).sort(parallel);
+        assertEquals(sortedCheck, parallel);
+    }
+
+    /**
+     * Tests that a large parallel merge sort puts every key in the same place as a sequential sort
+     */
+    @Test
+    public void parallelMatchesSequential() {
+        Random random = new Random(11);
+        int size = 200_000;
+
+        long[] sequentialKeys = new long[size];
+        int[] sequential = new int[size];
+
+        // Few distinct keys so there are plenty of ties to keep in order
+        for (int i = 0; i < size; i++) {
+            sequentialKeys[i] = random.nextInt(1600);
+            sequential[i] = i;
+        }
+
+        long[] parallelKeys = sequentialKeys.clone();
+        int[] parallel = sequential.clone();
+
+        IntroSort.sort(sequentialKeys, sequential);
+        ParallelMergeSort.sort(parallelKeys, parallel);
+
+        assertArrayEquals(sequentialKeys, parallelKeys);
+        assertArrayEquals(sequential, parallel);
+
+        for (int i = 1; i < size; i++) {
+            assertTrue(parallelKeys[i - 1] < parallelKeys[i]
+                    || (parallelKeys[i - 1] == parallelKeys[i] && parallel[i - 1] < parallel[i]));
+        }
+    }
+
+    /**
+     * Tests that the sequential and parallel sorts stop once the sorting thread is interrupted,
+     *  leaving the interrupt set
+     */
+    @Test
+    public void interruptedSortsStop() {
+        Random random = new Random(13);
+        long[] keys = new long[200_000];
+        int[] indexes = new int[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+            indexes[i] = i;
+        }
+
+        Thread.currentThread().interrupt();
+
+        try {
+            IntroSort.sort(keys.clone(), indexes.clone());
+            fail("Sequential sort finished");
+        } catch (CancellationException e) {
+            // Expected
+        }
+
+        try {
+            ParallelMergeSort.sort(keys.clone(), indexes.clone());
+            fail("Parallel sort finished");
+        } catch (CancellationException e) {
+            // Expected
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        // Clearing the interrupt lets the next sort finish
+        IntroSort.sort(keys, indexes);
+
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] <= keys[i]);
+        }
+    }
+
+    /**
+     * Tests that many size sorts running at the same time on a shared sorter don't interfere
+     */
+    @Test
+    public void concurrentSorts() throws Exception {
+        SizeSorter sorter = new SizeSorter();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int task = 0; task < 200; task++) {
+                final long seed = task;
+
+                results.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    List<Picture> pics = new ArrayList<>();
+                    int count = 2000 + random.nextInt(2000);
+
+                    for (int i = 0; i < count; i++) {
+                        pics.add(new Picture(random.nextInt(5000), random.nextInt(5000)));
+                    }
+
+                    List<Picture> expected = new ArrayList<>(pics);
+                    expected.sort((a, b) -> Long.compare(a.totalPixelsSize(), b.totalPixelsSize()));
+
+                    // Alternate between the shared sorter and the static helper
+                    if (seed % 2 == 0) {
+                        sorter.sort(pics);
+                    } else {
+                        SortUtils.sizeSort(pics);
+                    }
+
+                    assertEquals(expected.size(), pics.size());
+                    for (int i = 0; i < pics.size(); i++) {
+                        assertEquals(expected.get(i).totalPixelsSize(), pics.get(i).totalPixelsSize());
+                    }
+
+                    // Every picture is still there exactly once
+                    Map<Picture, Boolean> remaining = new IdentityHashMap<>();
+                    for (Picture pic : expected) {
+                        remaining.put(pic, true);
+                    }
+
+                    for (Picture pic : pics) {
+                        assertNotNull(remaining.remove(pic));
+                    }
+
+                    assertTrue(remaining.isEmpty());
+
+                    return null;
+                }));
+            }
+
+            // Rethrows any assertion that failed on the executor
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sorts the keys with the introsort and checks them against Arrays.sort, including that
+     * each index still points at its original key.
+     *
+     * @param keys The keys to sort
+     */
+    private static void assertSortsLikeArraysSort(long[] keys) {
+        long[] original = keys.clone();
+        long[] expected = keys.clone();
+        Arrays.sort(expected);
+
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+
+        IntroSort.sort(keys, indexes);
+
+        assertArrayEquals(expected, keys);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(original[indexes[i]], keys[i]);
+        }
+    }
+
     /**
      * Tests that image sizes below zero are observed as 0
      */
@@ -70,4 +333,56 @@ public class SizeSortTests {
 
         assertEquals(Long.MAX_VALUE, bigSize.totalPixelsSize());
     }
+
+    /**
+     * Tests that the clamping matches the exact product around the overflow boundaries
+     */
+    @Test
+    public void overflowBoundaries() {
+        assertEquals(25, new Picture(-5, -5).totalPixelsSize());
+        assertEquals(0, new Picture(5, -5).totalPixelsSize());
+        assertEquals(Long.MAX_VALUE, new Picture(Long.MAX_VALUE, 1).totalPixelsSize());
+        assertEquals(Long.MAX_VALUE, new Picture(Long.MIN_VALUE, -1).totalPixelsSize());
+        assertEquals(Long.MAX_VALUE, new Picture(-1, Long.MIN_VALUE).totalPixelsSize());
+        assertEquals(0, new Picture(Long.MIN_VALUE, 1).totalPixelsSize());
+        assertEquals(0, new Picture(Long.MIN_VALUE, 0).totalPixelsSize());
+        assertEquals(Long.MAX_VALUE, new Picture(Long.MIN_VALUE, Long.MIN_VALUE).totalPixelsSize());
+        assertEquals(0, new Picture(Long.MAX_VALUE, Long.MIN_VALUE).totalPixelsSize());
+
+        // 3037000499^2 is the largest square that fits in a long
+        assertEquals(3037000499L * 3037000499L, new Picture(3037000499L, 3037000499L).totalPixelsSize());
+        assertEquals(Long.MAX_VALUE, new Picture(3037000500L, 3037000500L).totalPixelsSize());
+        assertEquals(0, new Picture(-3037000500L, 3037000500L).totalPixelsSize());
+        assertEquals(4294967296L * 2147483647L, new Picture(4294967296L, 2147483647L).totalPixelsSize());
+    }
+
+    /**
+     * Tests that getting the area of a picture doesn't allocate, so sorting doesn't churn the heap
+     */
+    @Test
+    public void areaDoesNotAllocate() {
+        Picture[] pics = new Picture[1000];
+        for (int i = 0; i < pics.length; i++) {
+            pics[i] = new Picture(i * 92233720L, 99999999000L - i);
+        }
+
+        // Warm up so the measured loop runs compiled code
+        long[] checksum = {0};
+        for (int round = 0; round < 200; round++) {
+            for (Picture pic : pics) {
+                checksum[0] += pic.totalPixelsSize();
+            }
+        }
+
+        // A million calls
+        Allocations.assertAllocatesNothing(() -> {
+            for (int round = 0; round < 1000; round++) {
+                for (Picture pic : pics) {
+                    checksum[0] += pic.totalPixelsSize();
+                }
+            }
+        });
+
+        assertNotEquals(0, checksum[0]);
+    }
 }
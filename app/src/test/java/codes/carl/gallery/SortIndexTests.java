@@ -0,0 +1,381 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.utils.sort.SortIndex;
+import codes.carl.gallery.utils.sort.SortType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the cached sort orders of the gallery pictures.
+ *
+ * @see codes.carl.gallery.utils.sort.SortIndex
+ */
+public class SortIndexTests {
+
+    /**
+     * Tests that the server order is still available after sorting, unlike sorting in place.
+     */
+    @Test
+    public void normalOrderKept() {
+        List<Picture> pics = pictures();
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+
+        index.sorted(SortType.SIZE);
+        index.sorted(SortType.ALPHA);
+
+        assertEquals(pics, index.sorted(SortType.NORMAL));
+        assertEquals(pics, index.getPictures());
+    }
+
+    /**
+     * Tests that each sorted order matches the matching sort method.
+     */
+    @Test
+    public void sortedOrders() {
+        List<Picture> pics = pictures();
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+
+        List<Picture> bySize = new ArrayList<>(pics);
+        SortUtils.sizeSort(bySize);
+
+        assertEquals(SortUtils.alphaSort(pics), index.sorted(SortType.ALPHA));
+        assertEquals(SortUtils.localeSort(pics, Locale.ENGLISH), index.sorted(SortType.LOCALE_ALPHA));
+        assertEquals(bySize, index.sorted(SortType.SIZE));
+    }
+
+    /**
+     * Tests that an order is only worked out the first time it is asked for.
+     */
+    @Test
+    public void ordersCached() {
+        SortIndex index = new SortIndex(pictures(), Locale.ENGLISH);
+
+        assertTrue(index.isSorted(SortType.NORMAL));
+        assertFalse(index.isSorted(SortType.SIZE));
+
+        List<Picture> bySize = index.sorted(SortType.SIZE);
+
+        assertTrue(index.isSorted(SortType.SIZE));
+        assertFalse(index.isSorted(SortType.ALPHA));
+        assertSame(bySize, index.sorted(SortType.SIZE));
+    }
+
+    /**
+     * Tests that the index is not affected by later changes to the list it was made from, and
+     *  cannot be changed itself.
+     */
+    @Test
+    public void immutable() {
+        List<Picture> pics = pictures();
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+        List<Picture> byAuthor = index.sorted(SortType.ALPHA);
+
+        pics.clear();
+
+        assertEquals(4, index.size());
+        assertEquals(4, byAuthor.size());
+
+        try {
+            byAuthor.remove(0);
+            fail("Sorted list should be read only");
+        } catch (UnsupportedOperationException expected) {
+            // Expected
+        }
+
+        try {
+            index.getPictures().set(0, new Picture("Zoom"));
+            fail("Server order list should be read only");
+        } catch (UnsupportedOperationException expected) {
+            // Expected
+        }
+    }
+
+    /**
+     * Tests that adding a page merges the new pictures into the orders already worked out,
+     *  giving the same result as sorting everything again.
+     */
+    @Test
+    public void pageAdded() {
+        Random random = new Random(42);
+        List<Picture> pics = randomPictures(random, 0, 500);
+        SortIndex index = sortAll(new SortIndex(pics, Locale.ENGLISH));
+
+        List<Picture> combined = new ArrayList<>(pics);
+        combined.addAll(randomPictures(random, 500, 50));
+
+        assertMatchesFullSort(index.update(combined));
+    }
+
+    /**
+     * Tests that refreshed results with pictures removed, added and changed merge into the
+     *  orders already worked out, giving the same result as sorting everything again.
+     */
+    @Test
+    public void refreshed() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            List<Picture> pics = randomPictures(random, 0, 300);
+            SortIndex index = sortAll(new SortIndex(pics, Locale.ENGLISH));
+
+            List<Picture> refreshed = new ArrayList<>();
+            int nextId = 1000;
+
+            for (Picture pic : pics) {
+                int change = random.nextInt(10);
+
+                if (change == 0) {
+                    // Removed
+                    continue;
+                } else if (change == 1) {
+                    // Same id, different author and size
+                    refreshed.add(new Picture(pic.getId(), "Zed", 1 + random.nextInt(4), 1, "", ""));
+                } else if (change == 2) {
+                    // Same id and sort keys, different instance
+                    refreshed.add(new Picture(pic.getId(), pic.getAuthor(), pic.getWidth(), pic.getHeight(), "changed", ""));
+                } else {
+                    refreshed.add(pic);
+                }
+
+                if (random.nextInt(8) == 0) {
+                    refreshed.addAll(randomPictures(random, nextId, 1 + random.nextInt(3)));
+                    nextId += 10;
+                }
+            }
+
+            assertMatchesFullSort(index.update(refreshed));
+        }
+    }
+
+    /**
+     * Tests that pictures moved around in server order are still sorted correctly, since
+     *  pictures with the same sort key are ordered by server position.
+     */
+    @Test
+    public void reordered() {
+        Random random = new Random(42);
+        List<Picture> pics = randomPictures(random, 0, 300);
+        SortIndex index = sortAll(new SortIndex(pics, Locale.ENGLISH));
+
+        List<Picture> shuffled = new ArrayList<>(pics);
+        Collections.shuffle(shuffled, random);
+
+        assertMatchesFullSort(index.update(shuffled));
+    }
+
+    /**
+     * Tests that orders not worked out before an update are still sorted correctly.
+     */
+    @Test
+    public void unsortedBeforeUpdate() {
+        Random random = new Random(42);
+        List<Picture> pics = randomPictures(random, 0, 300);
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+        index.sorted(SortType.SIZE);
+
+        List<Picture> combined = new ArrayList<>(pics.subList(100, 300));
+        combined.addAll(randomPictures(random, 500, 50));
+
+        assertMatchesFullSort(index.update(combined));
+    }
+
+    /**
+     * Tests that an order worked out before two updates in a row is still merged, rather than
+     *  lost by the update that came before it was needed.
+     */
+    @Test
+    public void carriedThroughUpdates() {
+        Random random = new Random(42);
+        List<Picture> pics = new ArrayList<>();
+
+        for (Picture pic : randomPictures(random, 0, 1000)) {
+            pics.add(new CountingPicture(pic));
+        }
+
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+        index.sorted(SortType.ALPHA);
+
+        List<Picture> firstPage = new ArrayList<>(pics);
+        firstPage.addAll(randomPictures(random, 1000, 10));
+        SortIndex first = index.update(firstPage);
+
+        // Removes pictures too, so the first delta isn't just a page added at the end
+        List<Picture> secondPage = new ArrayList<>(firstPage.subList(5, firstPage.size()));
+        secondPage.addAll(randomPictures(random, 2000, 10));
+        SortIndex second = first.update(secondPage);
+
+        CountingPicture.authorReads = 0;
+        second.sorted(SortType.ALPHA);
+
+        // Sorting everything again reads every author at least once
+        assertTrue("Read " + CountingPicture.authorReads + " authors", CountingPicture.authorReads < pics.size() / 2);
+        assertMatchesFullSort(second);
+    }
+
+    /**
+     * Tests that making an index for new pictures leaves matching them up with the old pictures
+     *  to the first sort, as updates are made on the main thread.
+     */
+    @Test
+    public void updateLeavesMatchingToSort() {
+        Random random = new Random(42);
+        List<Picture> pics = new ArrayList<>();
+
+        for (Picture pic : randomPictures(random, 0, 300)) {
+            pics.add(new CountingPicture(pic));
+        }
+
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+        index.sorted(SortType.SIZE);
+
+        // Pictures removed from the front, so the new pictures don't just start with the old ones
+        List<Picture> refreshed = new ArrayList<>(pics.subList(10, pics.size()));
+        CountingPicture.idReads = 0;
+
+        SortIndex first = index.update(refreshed);
+        SortIndex second = first.update(new ArrayList<>(refreshed.subList(10, refreshed.size())));
+
+        assertEquals(0, CountingPicture.idReads);
+        assertMatchesFullSort(second);
+        assertTrue(CountingPicture.idReads > 0);
+    }
+
+    /**
+     * Tests that a page added to a picture store merges into the orders already worked out,
+     *  the same way as for a list of pictures.
+     */
+    @Test
+    public void storePageAdded() {
+        Random random = new Random(42);
+        PictureStore.Builder builder = new PictureStore.Builder().addAll(randomPictures(random, 0, 500));
+        SortIndex index = sortAll(new SortIndex(builder.build(), Locale.ENGLISH));
+
+        SortIndex updated = index.update(builder.addAll(randomPictures(random, 500, 50)).build());
+        SortIndex expected = new SortIndex(new ArrayList<>(updated.getPictures()), Locale.ENGLISH);
+
+        for (SortType sortType : SortType.values()) {
+            assertEquals(sortType.toString(), expected.sorted(sortType), updated.sorted(sortType));
+        }
+    }
+
+    /**
+     * Works out every sorted order of an index.
+     *
+     * @param index The index
+     * @return The same index
+     */
+    private static SortIndex sortAll(SortIndex index) {
+        for (SortType sortType : SortType.values()) {
+            index.sorted(sortType);
+        }
+
+        return index;
+    }
+
+    /**
+     * Asserts that every sorted order of an index holds the same pictures in the same order as
+     *  a new index sorted from scratch.
+     *
+     * @param index The index
+     */
+    private static void assertMatchesFullSort(SortIndex index) {
+        SortIndex expected = new SortIndex(index.getPictures(), Locale.ENGLISH);
+
+        for (SortType sortType : SortType.values()) {
+            List<Picture> expectedOrder = expected.sorted(sortType);
+            List<Picture> actualOrder = index.sorted(sortType);
+
+            assertEquals(expectedOrder.size(), actualOrder.size());
+
+            for (int i = 0; i < expectedOrder.size(); i++) {
+                assertSame(sortType + " position " + i, expectedOrder.get(i), actualOrder.get(i));
+            }
+        }
+    }
+
+    /**
+     * Generates pictures with few distinct authors and sizes, so many share a sort key.
+     *
+     * @param random  The random number source
+     * @param firstId The id of the first picture
+     * @param count   The number of pictures
+     * @return The pictures
+     */
+    private static List<Picture> randomPictures(Random random, int firstId, int count) {
+        String[] authors = {"Paul", "Carl", "Zoom", "Andrew", "Élodie", "elodie", "Łukasz", "д"};
+        List<Picture> pics = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            pics.add(new Picture(String.valueOf(firstId + i), authors[random.nextInt(authors.length)],
+                    1 + random.nextInt(4), 1 + random.nextInt(4), "", ""));
+        }
+
+        return pics;
+    }
+
+    /**
+     * Builds a small gallery whose server, author and size orders all differ. Also used by the
+     *  sort pipeline tests.
+     *
+     * @return The pictures in server order
+     */
+    static List<Picture> pictures() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(new Picture("1", "Paul", 300, 300, "", ""));
+        pics.add(new Picture("2", "Carl", 100, 100, "", ""));
+        pics.add(new Picture("3", "Zoom", 200, 200, "", ""));
+        pics.add(new Picture("4", "Andrew", 400, 400, "", ""));
+
+        return pics;
+    }
+
+    /**
+     * A picture that counts how often its author and id are read, to tell a merge from a full
+     *  sort and to see when pictures are matched up.
+     */
+    private static class CountingPicture extends Picture {
+
+        /**
+         * The number of times any counting picture's author was read.
+         */
+        static int authorReads = 0;
+
+        /**
+         * The number of times any counting picture's id was read.
+         */
+        static int idReads = 0;
+
+        /**
+         * Constructs a counting picture with the same details as another picture.
+         *
+         * @param picture The picture to copy
+         */
+        CountingPicture(Picture picture) {
+            super(picture.getId(), picture.getAuthor(), picture.getWidth(), picture.getHeight(), picture.getUrl(),
+                    picture.getDownload_url());
+        }
+
+        @Override
+        public String getAuthor() {
+            authorReads++;
+            return super.getAuthor();
+        }
+
+        @Override
+        public String getId() {
+            idReads++;
+            return super.getId();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.sort.SortIndex;
+import codes.carl.gallery.utils.sort.SortPipeline;
+import codes.carl.gallery.utils.sort.SortType;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for sorting the gallery pictures off the main thread.
+ *
+ * @see codes.carl.gallery.utils.sort.SortPipeline
+ */
+public class SortPipelineTests {
+
+    /**
+     * Tests that pictures are sorted on the sort scheduler, not the requesting thread.
+     */
+    @Test
+    public void sortsOnScheduler() {
+        TestScheduler scheduler = new TestScheduler();
+        SortPipeline pipeline = new SortPipeline(scheduler);
+        TestObserver<SortPipeline.Result> results = pipeline.results().test();
+        SortIndex index = new SortIndex(SortIndexTests.pictures(), Locale.ENGLISH);
+
+        pipeline.sort(index, SortType.SIZE);
+
+        results.assertNoValues();
+        assertFalse(index.isSorted(SortType.SIZE));
+
+        scheduler.triggerActions();
+
+        results.assertValueCount(1);
+        SortPipeline.Result result = results.values().get(0);
+
+        assertSame(index, result.getSortIndex());
+        assertEquals(SortType.SIZE, result.getSortType());
+        assertSame(index.sorted(SortType.SIZE), result.getPictures());
+        assertFalse(result.isCached());
+        assertEquals(1, pipeline.getSortCount());
+    }
+
+    /**
+     * Tests that a newer request replaces one that has not finished sorting.
+     */
+    @Test
+    public void newerRequestWins() {
+        TestScheduler scheduler = new TestScheduler();
+        SortPipeline pipeline = new SortPipeline(scheduler);
+        TestObserver<SortPipeline.Result> results = pipeline.results().test();
+        SortIndex index = new SortIndex(SortIndexTests.pictures(), Locale.ENGLISH);
+
+        pipeline.sort(index, SortType.SIZE);
+        pipeline.sort(index, SortType.ALPHA);
+        scheduler.triggerActions();
+
+        results.assertValueCount(1);
+        assertEquals(SortType.ALPHA, results.values().get(0).getSortType());
+
+        // The replaced sort never ran
+        assertFalse(index.isSorted(SortType.SIZE));
+        assertEquals(1, pipeline.getSortCount());
+    }
+
+    /**
+     * Tests that a sort replaced while it is running on a real thread is abandoned part way,
+     *  rather than finishing and keeping an order nobody asked for.
+     */
+    @Test
+    public void replacedSortAbandoned() throws Exception {
+        SortPipeline pipeline = new SortPipeline(Schedulers.newThread());
+        TestObserver<SortPipeline.Result> results = pipeline.results().test();
+
+        List<Picture> pics = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            pics.add(new BlockingPicture(String.valueOf(i), 1 + (i * 7919) % 1000));
+        }
+
+        SortIndex index = new SortIndex(pics, Locale.ENGLISH);
+
+        pipeline.sort(index, SortType.SIZE);
+        assertTrue(BlockingPicture.reading.await(5, TimeUnit.SECONDS));
+
+        // Replacing the request while the sort is reading the sizes interrupts it
+        pipeline.sort(index, SortType.NORMAL);
+        BlockingPicture.sortThread.join(5000);
+
+        assertFalse(BlockingPicture.sortThread.isAlive());
+        assertFalse(index.isSorted(SortType.SIZE));
+        assertEquals(0, pipeline.getSortCount());
+
+        results.assertValueCount(1);
+        assertEquals(SortType.NORMAL, results.values().get(0).getSortType());
+
+        // Asking again sorts from scratch
+        pipeline.sort(index, SortType.SIZE);
+        results.awaitCount(2);
+        results.assertValueCount(2);
+        assertTrue(index.isSorted(SortType.SIZE));
+        assertEquals(1, pipeline.getSortCount());
+    }
+
+    /**
+     * Tests that orders already worked out are published straight away.
+     */
+    @Test
+    public void cachedOrderImmediate() {
+        TestScheduler scheduler = new TestScheduler();
+        SortPipeline pipeline = new SortPipeline(scheduler);
+        TestObserver<SortPipeline.Result> results = pipeline.results().test();
+        SortIndex index = new SortIndex(SortIndexTests.pictures(), Locale.ENGLISH);
+
+        pipeline.sort(index, SortType.NORMAL);
+
+        results.assertValueCount(1);
+        assertTrue(results.values().get(0).isCached());
+        assertEquals(0, results.values().get(0).getDurationMillis());
+        assertEquals(index.getPictures(), results.values().get(0).getPictures());
+        assertEquals(0, pipeline.getSortCount());
+    }
+
+    /**
+     * A picture whose size can't be read until the sort reading it has been replaced, so a test
+     *  can replace a sort while it is known to be running.
+     */
+    private static class BlockingPicture extends Picture {
+
+        /**
+         * Counts down once a sort starts reading the sizes.
+         */
+        static final CountDownLatch reading = new CountDownLatch(1);
+
+        /**
+         * Never counts down, so reading a size waits until the reading thread is interrupted.
+         */
+        static final CountDownLatch never = new CountDownLatch(1);
+
+        /**
+         * The thread that first read a size.
+         */
+        static volatile Thread sortThread;
+
+        /**
+         * Constructs a blocking picture.
+         *
+         * @param id   The picture id
+         * @param size The width and height in pixels
+         */
+        BlockingPicture(String id, long size) {
+            super(id, "Paul", size, size, "", "");
+        }
+
+        @Override
+        public long totalPixelsSize() {
+            if (sortThread == null) {
+                sortThread = Thread.currentThread();
+                reading.countDown();
+
+                try {
+                    never.await();
+                } catch (InterruptedException e) {
+                    // Leave the interrupt for the sort to find, and carry on reading
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return super.totalPixelsSize();
+        }
+    }
+}
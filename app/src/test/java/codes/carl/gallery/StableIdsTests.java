@@ -0,0 +1,150 @@
+package codes.carl.gallery;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.model.PictureStore;
+import codes.carl.gallery.utils.StableIds;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the stable ids of the gallery rows.
+ *
+ * @see codes.carl.gallery.utils.StableIds
+ */
+public class StableIdsTests {
+
+    /**
+     * Tests that numeric ids are used as they are, read from a store or a plain list.
+     */
+    @Test
+    public void numericIds() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(picture("0"));
+        pics.add(picture("1084"));
+
+        StableIds ids = new StableIds().update(pics);
+        StableIds storeIds = new StableIds().update(new PictureStore.Builder().addAll(pics).build());
+
+        assertEquals(0, ids.get(0));
+        assertEquals(1084, ids.get(1));
+        assertEquals(0, storeIds.get(0));
+        assertEquals(1084, storeIds.get(1));
+    }
+
+    /**
+     * Tests that ids that aren't plain numbers never share a stable id, even when their hashes
+     *  collide, and keep their stable id when read again.
+     */
+    @Test
+    public void otherIds() {
+        // "Aa" and "BB" have the same String hash
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        List<Picture> pics = new ArrayList<>();
+        pics.add(picture("Aa"));
+        pics.add(picture("BB"));
+        pics.add(picture("007"));
+        pics.add(picture("99999999999"));
+        pics.add(picture(null));
+        pics.add(new Picture(null, "Carl Poole", 300, 400, null, null));
+        pics.add(picture("12"));
+
+        StableIds ids = new StableIds().update(pics);
+        assertUnique(ids, pics.size());
+
+        // Read again in reverse, as after a re-sort
+        List<Picture> reversed = new ArrayList<>(pics);
+        Collections.reverse(reversed);
+        StableIds reversedIds = ids.update(reversed);
+
+        for (int i = 0; i < reversed.size(); i++) {
+            assertEquals(ids.get(pics.size() - 1 - i), reversedIds.get(i));
+        }
+    }
+
+    /**
+     * Tests that a picture shown more than once, as when it moves between pages while the
+     *  gallery is scrolled, gets a different stable id for every row, and that the rows keep
+     *  them when the gallery changes.
+     */
+    @Test
+    public void repeatedPictures() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(picture("10"));
+        pics.add(picture("Aa"));
+        pics.add(picture(null));
+        pics.add(picture("10"));
+        pics.add(picture("Aa"));
+        pics.add(picture(null));
+        pics.add(picture("10"));
+
+        StableIds ids = new StableIds().update(pics);
+        assertUnique(ids, pics.size());
+        assertEquals(10, ids.get(0));
+
+        // The first picture moves to the end
+        List<Picture> moved = new ArrayList<>(pics.subList(1, pics.size()));
+        moved.add(pics.get(0));
+        StableIds movedIds = ids.update(moved);
+
+        assertUnique(movedIds, moved.size());
+        assertEquals(ids.get(1), movedIds.get(0));
+        assertEquals(ids.get(2), movedIds.get(1));
+    }
+
+    /**
+     * Tests that the stable ids of pictures no longer shown are forgotten, so a picture that
+     *  comes back is given a new one.
+     */
+    @Test
+    public void removedForgotten() {
+        List<Picture> pics = new ArrayList<>();
+        pics.add(picture("Aa"));
+        pics.add(picture("BB"));
+
+        StableIds ids = new StableIds().update(pics);
+        StableIds removed = ids.update(pics.subList(1, 2));
+        StableIds restored = removed.update(pics);
+
+        assertEquals(ids.get(1), removed.get(0));
+        assertEquals(ids.get(1), restored.get(1));
+        assertNotEquals(ids.get(0), restored.get(0));
+        assertUnique(restored, pics.size());
+    }
+
+    /**
+     * Asserts that every row has its own stable id, and none is the id RecyclerView reserves.
+     *
+     * @param ids   The stable ids
+     * @param count The number of rows
+     */
+    private static void assertUnique(StableIds ids, int count) {
+        Set<Long> seen = new HashSet<>();
+
+        for (int i = 0; i < count; i++) {
+            long id = ids.get(i);
+
+            assertNotEquals(-1, id);
+            assertTrue("Stable id " + id + " given twice", seen.add(id));
+        }
+    }
+
+    /**
+     * Makes a Lorem Picsum picture.
+     *
+     * @param id The picture id
+     * @return The picture
+     */
+    private static Picture picture(String id) {
+        return new Picture(id, "Paul Jarvis", 100, 200, "https://unsplash.com/photos/" + id,
+                "https://picsum.photos/id/" + id + "/100/200");
+    }
+}
@@ -0,0 +1,271 @@
+package codes.carl.gallery.utils.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import codes.carl.gallery.model.Picture;
+
+/**
+ * A trie to sort the String names of picture authors alphabetically, stored in flat arrays
+ *  instead of node objects. It sorts exactly like {@link Trie}.
+ *
+ * Each node is a slot in a few parallel arrays: its letter, its first child and its next
+ *  sibling. Siblings are linked in alphabetical order, so a node only costs space for the
+ *  children it actually has rather than a slot for each of the 26 letters. The pictures at a
+ *  node are linked through an array next to the inserted pictures instead of a list per node,
+ *  so nodes without pictures hold nothing extra.
+ *
+ * The app sorts authors with {@link AlphaSorter}, which builds no nodes at all, so this trie
+ *  is only kept to compare with {@link Trie} in the tests and benchmarks.
+ */
+public class CompactTrie {
+
+    /**
+     * Marks a missing node or picture in the link arrays.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The root node, which holds the pictures without any letters a-z in the author name.
+     */
+    private static final int ROOT = 0;
+
+    /**
+     * The number of slots allocated the first time.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The letter leading to each node, as an offset from 'a'.
+     */
+    private byte[] letters;
+
+    /**
+     * The first child of each node in alphabetical order.
+     */
+    private int[] firstChild;
+
+    /**
+     * The next sibling of each node in alphabetical order.
+     */
+    private int[] nextSibling;
+
+    /**
+     * The first picture inserted at each node.
+     */
+    private int[] firstPicture;
+
+    /**
+     * The last picture inserted at each node, where the next picture is linked.
+     */
+    private int[] lastPicture;
+
+    /**
+     * The number of nodes in the trie, including the root.
+     */
+    private int nodeCount;
+
+    /**
+     * The inserted pictures, in insertion order.
+     */
+    private Picture[] pictures;
+
+    /**
+     * The next picture at the same node as each inserted picture.
+     */
+    private int[] nextPicture;
+
+    /**
+     * The number of inserted pictures.
+     */
+    private int pictureCount;
+
+    /**
+     * Constructs a new trie.
+     */
+    public CompactTrie() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a new trie with room for a number of pictures before growing.
+     *
+     * @param expectedPictures The number of pictures expected to be inserted
+     */
+    public CompactTrie(int expectedPictures) {
+        int capacity = Math.max(expectedPictures, INITIAL_CAPACITY);
+
+        letters = new byte[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        firstPicture = new int[capacity];
+        lastPicture = new int[capacity];
+
+        pictures = new Picture[capacity];
+        nextPicture = new int[capacity];
+
+        nodeCount = 1;
+        firstChild[ROOT] = NONE;
+        nextSibling[ROOT] = NONE;
+        firstPicture[ROOT] = NONE;
+        lastPicture[ROOT] = NONE;
+    }
+
+    /**
+     * Inserts the picture in the trie based on its alphabetic position.
+     * Strings containing all characters that are outside the range a-z will appear at the front.
+     *
+     * @param picture The picture being sorted into the trie
+     */
+    public void insert(Picture picture) {
+        int node = ROOT;
+
+        // Get author name, make lowercase
+        String authorName = picture.getAuthor().toLowerCase();
+
+        for (int i = 0; i < authorName.length(); i++) {
+            char c = authorName.charAt(i);
+
+            // Skip if the character is not English alphabet, which includes whitespace
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+
+            node = child(node, (byte) (c - 'a'));
+        }
+
+        addPicture(node, picture);
+    }
+
+    /**
+     * Flattens the trie structure into a list of pictures in alphabetical order.
+     *
+     * @return The sorted list of pictures
+     */
+    public List<Picture> flatten() {
+        List<Picture> sorted = new ArrayList<>(pictureCount);
+
+        // performs a DFS using a stack instead of recursive calls that risk a stack overflow.
+        // Pushing the next sibling before the first child finishes each subtree before moving
+        // on to the following letter, and the stack never holds more than one node per level.
+        int[] nodeStack = new int[INITIAL_CAPACITY];
+        int top = 0;
+        nodeStack[top++] = ROOT;
+
+        while (top > 0) {
+            int node = nodeStack[--top];
+
+            for (int p = firstPicture[node]; p != NONE; p = nextPicture[p]) {
+                sorted.add(pictures[p]);
+            }
+
+            if (top + 2 > nodeStack.length) {
+                nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+            }
+
+            if (nextSibling[node] != NONE) {
+                nodeStack[top++] = nextSibling[node];
+            }
+
+            if (firstChild[node] != NONE) {
+                nodeStack[top++] = firstChild[node];
+            }
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Gets the number of nodes in the trie, including the root.
+     *
+     * @return The node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the child of a node for a letter, adding it in alphabetical order among its siblings
+     *  if it does not exist yet.
+     *
+     * @param parent The parent node
+     * @param letter The letter as an offset from 'a'
+     * @return The child node
+     */
+    private int child(int parent, byte letter) {
+        int previous = NONE;
+        int sibling = firstChild[parent];
+
+        while (sibling != NONE && letters[sibling] < letter) {
+            previous = sibling;
+            sibling = nextSibling[sibling];
+        }
+
+        if (sibling != NONE && letters[sibling] == letter) {
+            return sibling;
+        }
+
+        int node = newNode(letter);
+        nextSibling[node] = sibling;
+
+        if (previous == NONE) {
+            firstChild[parent] = node;
+        } else {
+            nextSibling[previous] = node;
+        }
+
+        return node;
+    }
+
+    /**
+     * Allocates a node without children or pictures.
+     *
+     * @param letter The letter leading to the node
+     * @return The new node
+     */
+    private int newNode(byte letter) {
+        if (nodeCount == letters.length) {
+            int capacity = letters.length * 2;
+            letters = Arrays.copyOf(letters, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstPicture = Arrays.copyOf(firstPicture, capacity);
+            lastPicture = Arrays.copyOf(lastPicture, capacity);
+        }
+
+        int node = nodeCount++;
+        letters[node] = letter;
+        firstChild[node] = NONE;
+        firstPicture[node] = NONE;
+        lastPicture[node] = NONE;
+
+        return node;
+    }
+
+    /**
+     * Appends a picture to the pictures at a node, keeping insertion order.
+     *
+     * @param node    The node
+     * @param picture The picture
+     */
+    private void addPicture(int node, Picture picture) {
+        if (pictureCount == pictures.length) {
+            int capacity = pictures.length * 2;
+            pictures = Arrays.copyOf(pictures, capacity);
+            nextPicture = Arrays.copyOf(nextPicture, capacity);
+        }
+
+        int p = pictureCount++;
+        pictures[p] = picture;
+        nextPicture[p] = NONE;
+
+        if (firstPicture[node] == NONE) {
+            firstPicture[node] = p;
+        } else {
+            nextPicture[lastPicture[node]] = p;
+        }
+
+        lastPicture[node] = p;
+    }
+}
@@ -8,6 +8,9 @@ import codes.carl.gallery.model.Picture;
 
 /**
  * A trie structure to sort the String names of picture authors alphabetically.
+ *
+ * The app sorts with {@link AlphaSorter} now, so this is only kept to check the faster sorts
+ *  against and to measure them by.
  */
 public class Trie {
 
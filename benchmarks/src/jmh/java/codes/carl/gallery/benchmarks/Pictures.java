@@ -0,0 +1,65 @@
+package codes.carl.gallery.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import codes.carl.gallery.model.Picture;
+
+/**
+ * Generates synthetic picture lists for the benchmarks.
+ */
+final class Pictures {
+
+    /**
+     * Seed for the generated pictures so every run sorts the same data.
+     */
+    private static final long SEED = 42;
+
+    private Pictures() {
+    }
+
+    /**
+     * Generates pictures with author names and sizes in the given order.
+     *
+     * @param size  The number of pictures
+     * @param shape The order of the pictures
+     * @return The generated pictures
+     */
+    static List<Picture> generate(int size, Shape shape) {
+        Random random = new Random(SEED);
+        List<Picture> pictures = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            int rank = shape == Shape.EQUAL ? 0 : (shape == Shape.RANDOM ? random.nextInt(size) : i);
+            pictures.add(new Picture(String.valueOf(i), author(rank), 100 + rank, 100 + rank,
+                    "https://unsplash.com/photos/" + i, "https://picsum.photos/id/" + i + "/640/480"));
+        }
+
+        if (shape == Shape.REVERSED) {
+            Collections.reverse(pictures);
+        }
+
+        return pictures;
+    }
+
+    /**
+     * Builds an author name whose alphabetical order follows the rank.
+     *
+     * @param rank The position of the name in alphabetical order
+     * @return The author name
+     */
+    private static String author(int rank) {
+        char[] letters = new char[6];
+
+        for (int i = letters.length - 1; i >= 0; i--) {
+            letters[i] = (char) ('a' + rank % 26);
+            rank /= 26;
+        }
+
+        letters[0] = Character.toUpperCase(letters[0]);
+
+        return new String(letters, 0, 3) + " " + new String(letters, 3, 3);
+    }
+}
@@ -0,0 +1,8 @@
+package codes.carl.gallery.benchmarks;
+
+/**
+ * The order of the generated pictures, including inputs that are hard on sort algorithms.
+ */
+public enum Shape {
+    RANDOM, SORTED, REVERSED, EQUAL
+}
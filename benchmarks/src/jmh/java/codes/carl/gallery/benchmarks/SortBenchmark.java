@@ -0,0 +1,230 @@
+package codes.carl.gallery.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.SortUtils;
+import codes.carl.gallery.utils.sort.CompactTrie;
+import codes.carl.gallery.utils.sort.IntroSort;
+import codes.carl.gallery.utils.sort.SizeSorter;
+import codes.carl.gallery.utils.sort.SortIndex;
+import codes.carl.gallery.utils.sort.SortType;
+import codes.carl.gallery.utils.sort.Trie;
+
+/**
+ * Throughput and allocation of the gallery sort methods.
+ *
+ * The in-place sorts work on a fresh copy of the input each time, so {@link #copy()} and
+ *  {@link #copyKeys()} are the baselines to subtract from them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SortBenchmark {
+
+    /**
+     * Sorts by size on the calling thread only.
+     */
+    private static final SizeSorter SEQUENTIAL = new SizeSorter(Integer.MAX_VALUE);
+
+    /**
+     * Sorts by size on the fork/join pool whatever the list size.
+     */
+    private static final SizeSorter PARALLEL = new SizeSorter(0);
+
+    /**
+     * The number of pictures added by loading another page.
+     */
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * The number of pictures to sort.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    int size;
+
+    /**
+     * The order of the pictures before sorting.
+     */
+    @Param({"RANDOM", "SORTED", "REVERSED", "EQUAL"})
+    Shape shape;
+
+    /**
+     * The pictures to sort.
+     */
+    private List<Picture> pictures;
+
+    /**
+     * A trie already holding all of the pictures.
+     */
+    private Trie filledTrie;
+
+    /**
+     * A compact trie already holding all of the pictures.
+     */
+    private CompactTrie filledCompactTrie;
+
+    /**
+     * A sort index of the pictures with every order already worked out.
+     */
+    private SortIndex sortedIndex;
+
+    /**
+     * The pictures followed by one more page of pictures.
+     */
+    private List<Picture> withPage;
+
+    /**
+     * The areas of the pictures.
+     */
+    private long[] areas;
+
+    /**
+     * The positions of the pictures.
+     */
+    private int[] positions;
+
+    @Setup
+    public void setUp() {
+        pictures = Pictures.generate(size, shape);
+
+        filledTrie = new Trie();
+        for (Picture picture : pictures) {
+            filledTrie.insert(picture);
+        }
+
+        filledCompactTrie = new CompactTrie(size);
+        for (Picture picture : pictures) {
+            filledCompactTrie.insert(picture);
+        }
+
+        sortedIndex = new SortIndex(pictures, Locale.ENGLISH);
+        for (SortType sortType : SortType.values()) {
+            sortedIndex.sorted(sortType);
+        }
+
+        withPage = new ArrayList<>(pictures);
+        withPage.addAll(Pictures.generate(PAGE_SIZE, shape));
+
+        areas = new long[size];
+        positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            areas[i] = pictures.get(i).totalPixelsSize();
+            positions[i] = i;
+        }
+    }
+
+    @Benchmark
+    public List<Picture> copy() {
+        return new ArrayList<>(pictures);
+    }
+
+    @Benchmark
+    public List<Picture> alphaSort() {
+        return SortUtils.alphaSort(pictures);
+    }
+
+    @Benchmark
+    public List<Picture> trieAlphaSort() {
+        Trie trie = new Trie();
+
+        for (Picture picture : pictures) {
+            trie.insert(picture);
+        }
+
+        return trie.flatten();
+    }
+
+    @Benchmark
+    public List<Picture> localeSort() {
+        return SortUtils.localeSort(pictures, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public List<Picture> sizeSort() {
+        List<Picture> sorted = new ArrayList<>(pictures);
+        SortUtils.sizeSort(sorted);
+
+        return sorted;
+    }
+
+    @Benchmark
+    public List<Picture> pageAddedFullSort() {
+        return new SortIndex(withPage, Locale.ENGLISH).sorted(SortType.SIZE);
+    }
+
+    @Benchmark
+    public List<Picture> pageAddedMerge() {
+        return sortedIndex.update(withPage).sorted(SortType.SIZE);
+    }
+
+    @Benchmark
+    public int[] sequentialSizeOrder() {
+        return SEQUENTIAL.order(pictures);
+    }
+
+    @Benchmark
+    public int[] parallelSizeOrder() {
+        return PARALLEL.order(pictures);
+    }
+
+    @Benchmark
+    public Trie trieInsert() {
+        Trie trie = new Trie();
+
+        for (Picture picture : pictures) {
+            trie.insert(picture);
+        }
+
+        return trie;
+    }
+
+    @Benchmark
+    public List<Picture> trieFlatten() {
+        return filledTrie.flatten();
+    }
+
+    @Benchmark
+    public CompactTrie compactTrieInsert() {
+        CompactTrie trie = new CompactTrie(pictures.size());
+
+        for (Picture picture : pictures) {
+            trie.insert(picture);
+        }
+
+        return trie;
+    }
+
+    @Benchmark
+    public List<Picture> compactTrieFlatten() {
+        return filledCompactTrie.flatten();
+    }
+
+    @Benchmark
+    public void copyKeys(Blackhole blackhole) {
+        blackhole.consume(areas.clone());
+        blackhole.consume(positions.clone());
+    }
+
+    @Benchmark
+    public int[] introSort() {
+        long[] keys = areas.clone();
+        int[] indexes = positions.clone();
+        IntroSort.sort(keys, indexes);
+
+        return indexes;
+    }
+}
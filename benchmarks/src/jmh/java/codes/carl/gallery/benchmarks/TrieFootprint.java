@@ -0,0 +1,64 @@
+package codes.carl.gallery.benchmarks;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+
+import codes.carl.gallery.model.Picture;
+import codes.carl.gallery.utils.sort.CompactTrie;
+import codes.carl.gallery.utils.sort.Trie;
+
+/**
+ * Prints the heap retained by each trie once it holds all of the pictures, not counting the
+ *  pictures themselves. Run with: ./gradlew :benchmarks:trieFootprint
+ */
+public class TrieFootprint {
+
+    /**
+     * The numbers of pictures to measure.
+     */
+    private static final int[] SIZES = {1000, 10000, 100000};
+
+    private TrieFootprint() {
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %16s %16s %8s%n", "pictures", "Trie bytes", "CompactTrie bytes", "ratio");
+
+        for (int size : SIZES) {
+            List<Picture> pictures = Pictures.generate(size, Shape.RANDOM);
+
+            Trie trie = new Trie();
+            CompactTrie compactTrie = new CompactTrie(size);
+
+            for (Picture picture : pictures) {
+                trie.insert(picture);
+                compactTrie.insert(picture);
+            }
+
+            long trieBytes = retainedSize(trie, pictures);
+            long compactBytes = retainedSize(compactTrie, pictures);
+
+            System.out.printf("%10d %16d %16d %7.1fx%n", size, trieBytes, compactBytes, (double) trieBytes / compactBytes);
+        }
+    }
+
+    /**
+     * Gets the heap reachable from a trie, leaving out everything reachable from the pictures.
+     * The trie is walked together with the pictures so each object is only counted once, then
+     *  the pictures' own graph is taken off. This works whatever the strings are stored in, and
+     *  only compares sizes, so objects moving between the two walks don't matter.
+     *
+     * @param trie     The trie
+     * @param pictures The pictures in the trie
+     * @return The retained size in bytes
+     */
+    private static long retainedSize(Object trie, List<Picture> pictures) {
+        Object[] pictureRoots = pictures.toArray();
+        Object[] roots = new Object[pictureRoots.length + 1];
+        roots[0] = trie;
+        System.arraycopy(pictureRoots, 0, roots, 1, pictureRoots.length);
+
+        return GraphLayout.parseInstance(roots).totalSize() - GraphLayout.parseInstance(pictureRoots).totalSize();
+    }
+}